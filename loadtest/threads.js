@@ -0,0 +1,55 @@
+// Сравнение платформенных и виртуальных потоков (VIRTUAL_THREADS_ENABLED=false/true).
+// Запуск: k6 run -e BASE_URL=http://localhost:8080 -e TOURNAMENT_ID=1 -e LOGIN=user -e PASSWORD=secret loadtest/threads.js
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TOURNAMENT_ID = __ENV.TOURNAMENT_ID || '1';
+
+export const options = {
+    scenarios: {
+        // зрители турнира: публичные страницы, блокирующий JDBC и Redis
+        browsing: {
+            executor: 'ramping-vus',
+            exec: 'browse',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 200 },
+                { duration: '2m', target: 1000 },
+                { duration: '30s', target: 0 },
+            ],
+        },
+        // наплыв входов перед началом тура
+        logins: {
+            executor: 'constant-arrival-rate',
+            exec: 'login',
+            rate: 50,
+            timeUnit: '1s',
+            duration: '3m',
+            preAllocatedVUs: 100,
+        },
+    },
+    thresholds: {
+        'http_req_duration{scenario:browsing}': ['p(95)<500'],
+        'http_req_failed{scenario:browsing}': ['rate<0.01'],
+    },
+};
+
+export function browse() {
+    const responses = http.batch([
+        ['GET', `${BASE_URL}/api/tournament/all`],
+        ['GET', `${BASE_URL}/api/tournament/${TOURNAMENT_ID}`],
+        ['GET', `${BASE_URL}/api/match/byTournament/${TOURNAMENT_ID}`],
+        ['GET', `${BASE_URL}/api/user/top`],
+    ]);
+    responses.forEach(r => check(r, { 'status 200': res => res.status === 200 }));
+    sleep(1);
+}
+
+export function login() {
+    const response = http.post(`${BASE_URL}/api/auth/login`,
+        JSON.stringify({ login: __ENV.LOGIN, password: __ENV.PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    // 429 — ожидаемый отказ очереди хэширования, не ошибка сервера
+    check(response, { 'login 200 or 429': r => r.status === 200 || r.status === 429 });
+}
@@ -0,0 +1,104 @@
+package org.chessunion.benchmark;
+
+import org.chessunion.entity.Match;
+import org.chessunion.entity.Player;
+import org.chessunion.util.rating.EloKernel;
+import org.chessunion.util.rating.SimpleRatingCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One rated game per invocation. With {@code -prof gc} the kernel shows gc.alloc.rate.norm of 0 B/op;
+ * the calculator paths show what the entity copies (and the boxed Double rating) cost per game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EloKernelBenchmark {
+    private static final int GAMES = 1024;
+
+    private final double[] whiteRating = new double[GAMES];
+    private final double[] blackRating = new double[GAMES];
+    private final int[] whiteMatches = new int[GAMES];
+    private final int[] blackMatches = new int[GAMES];
+    private final double[] result = new double[GAMES];
+    private final EloKernel.Result out = new EloKernel.Result();
+
+    private final Player[] white = new Player[GAMES];
+    private final Player[] black = new Player[GAMES];
+    private final Match match = new Match();
+    private final SimpleRatingCalculator calculator = new SimpleRatingCalculator();
+
+    private int game;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double[] results = {1.0, 0.5, 0.0};
+        for (int i = 0; i < GAMES; i++) {
+            whiteRating[i] = 1200 + random.nextInt(1400);
+            blackRating[i] = whiteRating[i] + random.nextInt(801) - 400;
+            whiteMatches[i] = random.nextInt(60);
+            blackMatches[i] = random.nextInt(60);
+            result[i] = results[random.nextInt(results.length)];
+            white[i] = player(i * 2, whiteRating[i], whiteMatches[i]);
+            black[i] = player(i * 2 + 1, blackRating[i], blackMatches[i]);
+        }
+    }
+
+    // по кругу по набору партий; у игроков калькулятора рейтинг копится, но остаётся в реальных пределах
+    private int next() {
+        return game = (game + 1) & (GAMES - 1);
+    }
+
+    @Benchmark
+    public double expectedScoreTable() {
+        int i = next();
+        return EloKernel.expectedScore(whiteRating[i], blackRating[i]);
+    }
+
+    @Benchmark
+    public double expectedScorePow() {
+        int i = next();
+        return 1 / (1 + Math.pow(10, (blackRating[i] - whiteRating[i]) / 400));
+    }
+
+    @Benchmark
+    public void kernel(Blackhole blackhole) {
+        int i = next();
+        EloKernel.rate(whiteRating[i], whiteMatches[i], blackRating[i], blackMatches[i], result[i], out);
+        blackhole.consume(out.whiteRating);
+        blackhole.consume(out.blackRating);
+    }
+
+    @Benchmark
+    public Match calculatorCopies() {
+        int i = next();
+        match.setWhitePlayer(white[i]);
+        match.setBlackPlayer(black[i]);
+        match.setResult(result[i]);
+        return calculator.calculate(match);
+    }
+
+    @Benchmark
+    public void calculatorInPlace(Blackhole blackhole) {
+        int i = next();
+        calculator.apply(white[i], black[i], result[i]);
+        blackhole.consume(white[i].getRating());
+        blackhole.consume(black[i].getRating());
+    }
+
+    private static Player player(int id, double rating, int matches) {
+        Player player = new Player();
+        player.setId(id);
+        player.setRating(rating);
+        player.setAmountOfMatches(matches);
+        return player;
+    }
+}
@@ -0,0 +1,49 @@
+package org.chessunion.benchmark;
+
+import org.chessunion.util.pairing.BlossomSwissPairingEngine;
+import org.chessunion.util.pairing.PairingState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot building and the absolute colour rules the pairing checks for every pair of a late-round field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairingStateBenchmark {
+    @Param({"64", "512"})
+    public int players;
+
+    private SyntheticSwiss field;
+    private PairingState state;
+
+    @Setup
+    public void setUp() {
+        field = new SyntheticSwiss(players, 42).playUntil(10, new BlossomSwissPairingEngine());
+        state = field.snapshot();
+    }
+
+    @Benchmark
+    public PairingState snapshot() {
+        return field.snapshot();
+    }
+
+    @Benchmark
+    public int colourRules() {
+        int allowed = 0;
+        int n = state.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (state.canPlay(i, j) && state.whiteFirst(i, j)) {
+                    allowed++;
+                }
+            }
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,40 @@
+package org.chessunion.benchmark;
+
+import org.chessunion.util.pairing.BlossomSwissPairingEngine;
+import org.chessunion.util.pairing.PairingPlan;
+import org.chessunion.util.pairing.PairingState;
+import org.chessunion.util.pairing.SwissPairingEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pairing of one round: the field has already played {@code round - 1} rounds with the same engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwissPairingBenchmark {
+    @Param({"16", "64", "128", "256", "512"})
+    public int players;
+
+    @Param({"1", "4", "7", "11"})
+    public int round;
+
+    private final SwissPairingEngine engine = new BlossomSwissPairingEngine();
+    private PairingState state;
+
+    @Setup
+    public void setUp() {
+        state = new SyntheticSwiss(players, 42).playUntil(round - 1, engine).snapshot();
+    }
+
+    @Benchmark
+    public Optional<PairingPlan> pair() {
+        return engine.pair(state);
+    }
+}
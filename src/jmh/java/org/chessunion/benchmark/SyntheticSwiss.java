@@ -0,0 +1,123 @@
+package org.chessunion.benchmark;
+
+import org.chessunion.util.pairing.PairingPlan;
+import org.chessunion.util.pairing.PairingState;
+import org.chessunion.util.pairing.SwissPairingEngine;
+import org.chessunion.util.rating.EloKernel;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Swiss field played round by round with the real pairing engine; results are drawn from the Elo
+ * expectation with a fixed seed, so every run of a benchmark starts from the same field.
+ */
+final class SyntheticSwiss {
+    // доля ничьих вокруг ожидаемого результата
+    private static final double DRAW_BAND = 0.15;
+
+    final int size;
+    final int[] ids;
+    final double[] ratings;
+    final double[] scores;
+    final int[] colourBalance;
+    final StringBuilder[] colourHistory;
+    final boolean[] hadBye;
+
+    int rounds;
+    int gameCount;
+    int[] whiteIds = new int[64];
+    int[] blackIds = new int[64];
+    int[] gameRounds = new int[64];
+    double[] results = new double[64];
+    int byeCount;
+    int[] byeIds = new int[16];
+    int[] byeRounds = new int[16];
+
+    private final Random random;
+
+    SyntheticSwiss(int size, long seed) {
+        this.size = size;
+        this.random = new Random(seed);
+        ids = new int[size];
+        ratings = new double[size];
+        scores = new double[size];
+        colourBalance = new int[size];
+        colourHistory = new StringBuilder[size];
+        hadBye = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+            ratings[i] = 1200 + random.nextInt(1400);
+            colourHistory[i] = new StringBuilder();
+        }
+    }
+
+    PairingState snapshot() {
+        PairingState.Builder builder = PairingState.builder(size);
+        for (int i = 0; i < size; i++) {
+            builder.player(ids[i], scores[i], ratings[i], colourBalance[i], colourHistory[i].toString(), hadBye[i]);
+        }
+        for (int g = 0; g < gameCount; g++) {
+            builder.game(whiteIds[g], blackIds[g]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Pairs and plays rounds until {@code rounds} are done.
+     *
+     * @throws IllegalStateException if the engine finds no pairing for some round
+     */
+    SyntheticSwiss playUntil(int rounds, SwissPairingEngine engine) {
+        while (this.rounds < rounds) {
+            PairingPlan plan = engine.pair(snapshot())
+                    .orElseThrow(() -> new IllegalStateException("No pairing for round " + (this.rounds + 1) + " of " + size + " players"));
+            play(plan);
+        }
+        return this;
+    }
+
+    private void play(PairingPlan plan) {
+        rounds++;
+        if (plan.byePlayerId() != PairingPlan.NO_BYE) {
+            int bye = plan.byePlayerId() - 1;
+            scores[bye] += 1;
+            hadBye[bye] = true;
+            if (byeCount == byeIds.length) {
+                byeIds = Arrays.copyOf(byeIds, byeCount * 2);
+                byeRounds = Arrays.copyOf(byeRounds, byeCount * 2);
+            }
+            byeIds[byeCount] = plan.byePlayerId();
+            byeRounds[byeCount++] = rounds;
+        }
+        for (int board = 0; board < plan.boards(); board++) {
+            int white = plan.whitePlayerIds()[board] - 1;
+            int black = plan.blackPlayerIds()[board] - 1;
+            double expected = EloKernel.expectedScore(ratings[white], ratings[black]);
+            double draw = random.nextDouble();
+            double result = draw < expected - DRAW_BAND ? 1.0 : draw < expected + DRAW_BAND ? 0.5 : 0.0;
+
+            scores[white] += result;
+            scores[black] += 1 - result;
+            colourBalance[white]--;
+            colourBalance[black]++;
+            colourHistory[white].append('w');
+            colourHistory[black].append('b');
+            addGame(white + 1, black + 1, result);
+        }
+    }
+
+    private void addGame(int whiteId, int blackId, double result) {
+        if (gameCount == whiteIds.length) {
+            int capacity = gameCount * 2;
+            whiteIds = Arrays.copyOf(whiteIds, capacity);
+            blackIds = Arrays.copyOf(blackIds, capacity);
+            gameRounds = Arrays.copyOf(gameRounds, capacity);
+            results = Arrays.copyOf(results, capacity);
+        }
+        whiteIds[gameCount] = whiteId;
+        blackIds[gameCount] = blackId;
+        gameRounds[gameCount] = rounds;
+        results[gameCount++] = result;
+    }
+}
@@ -0,0 +1,41 @@
+package org.chessunion.benchmark;
+
+import org.chessunion.util.pairing.BlossomSwissPairingEngine;
+import org.chessunion.util.standings.TiebreakCalculator;
+import org.chessunion.util.standings.Tiebreaks;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full standings recompute after the last round, as StandingsService does it from the loaded games and byes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TiebreakBenchmark {
+    @Param({"16", "128", "512"})
+    public int players;
+
+    private SyntheticSwiss field;
+
+    @Setup
+    public void setUp() {
+        field = new SyntheticSwiss(players, 42).playUntil(11, new BlossomSwissPairingEngine());
+    }
+
+    @Benchmark
+    public Tiebreaks[] calculate() {
+        TiebreakCalculator calculator = new TiebreakCalculator(field.ids, field.scores, field.rounds);
+        for (int g = 0; g < field.gameCount; g++) {
+            calculator.game(field.whiteIds[g], field.blackIds[g], field.gameRounds[g], field.results[g]);
+        }
+        for (int b = 0; b < field.byeCount; b++) {
+            calculator.bye(field.byeIds[b], field.byeRounds[b]);
+        }
+        return calculator.calculate();
+    }
+}
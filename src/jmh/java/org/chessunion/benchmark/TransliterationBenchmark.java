@@ -0,0 +1,24 @@
+package org.chessunion.benchmark;
+
+import org.chessunion.service.TransliterationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransliterationBenchmark {
+    @Param({"Щербаков Ярослав Юрьевич", "Ivanov Ivan"})
+    public String fullName;
+
+    private final TransliterationService transliterationService = new TransliterationService();
+
+    @Benchmark
+    public String transliterate() {
+        return transliterationService.transliterate(fullName);
+    }
+}
@@ -0,0 +1,113 @@
+package org.chessunion.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.chessunion.util.cache.CacheInvalidationBus;
+import org.chessunion.util.cache.TwoTierCacheManager;
+import org.chessunion.util.cache.TwoTierCacheMeterBinderProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Set;
+
+@Configuration
+public class CacheConfig {
+    public static final String TOURNAMENTS = "tournaments";
+    public static final String STANDINGS = "standings";
+    public static final String ROUND_PAIRINGS = "roundPairings";
+    public static final String TOP_LIST = "topList";
+    public static final String PUBLIC_PROFILES = "publicProfiles";
+    public static final String PROFILES = "profiles";
+
+    // публичные страницы, которые читают все зрители турнира: держим их ещё и в памяти процесса
+    private static final Set<String> NEAR_CACHES = Set.of(TOURNAMENTS, STANDINGS, ROUND_PAIRINGS, TOP_LIST, PUBLIC_PROFILES);
+
+    // профили кэшируются только для первой страницы партий с размером по умолчанию (@PageableDefault)
+    public static final int FIRST_PAGE_SIZE = 10;
+    public static final String FIRST_PAGE = "#pageable.pageNumber == 0 and #pageable.pageSize == T(org.chessunion.config.CacheConfig).FIRST_PAGE_SIZE and #pageable.sort.unsorted";
+
+    @Value("${cache.ttl.default:10m}")
+    private Duration defaultTtl;
+
+    @Value("${cache.ttl.tournaments:10m}")
+    private Duration tournamentsTtl;
+
+    @Value("${cache.ttl.standings:10m}")
+    private Duration standingsTtl;
+
+    @Value("${cache.ttl.round-pairings:30m}")
+    private Duration roundPairingsTtl;
+
+    @Value("${cache.ttl.top-list:5m}")
+    private Duration topListTtl;
+
+    @Value("${cache.ttl.profiles:10m}")
+    private Duration profilesTtl;
+
+    @Value("${cache.near.maximum-size:10000}")
+    private long nearMaximumSize;
+
+    @Value("${cache.near.ttl:30s}")
+    private Duration nearTtl;
+
+    /**
+     * Redis caches with per-cache TTLs behind a Caffeine near cache. Writes and evictions are deferred
+     * to the commit of the surrounding transaction; evictions are broadcast to the other replicas.
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, CacheInvalidationBus cacheInvalidationBus) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues()
+                .prefixCacheNameWith("chessunion:");
+
+        // clear() по умолчанию ищет ключи через KEYS, который блокирует Redis; SCAN идёт порциями
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory, BatchStrategies.scan(1000));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
+                .cacheDefaults(defaults.entryTtl(defaultTtl))
+                .withCacheConfiguration(TOURNAMENTS, defaults.entryTtl(tournamentsTtl))
+                .withCacheConfiguration(STANDINGS, defaults.entryTtl(standingsTtl))
+                .withCacheConfiguration(ROUND_PAIRINGS, defaults.entryTtl(roundPairingsTtl))
+                .withCacheConfiguration(TOP_LIST, defaults.entryTtl(topListTtl))
+                .withCacheConfiguration(PUBLIC_PROFILES, defaults.entryTtl(profilesTtl))
+                .withCacheConfiguration(PROFILES, defaults.entryTtl(profilesTtl))
+                .enableStatistics()
+                .build();
+        redisCacheManager.initializeCaches();
+
+        // TTL ближнего уровня ограничивает устаревание, если сообщение об инвалидации потерялось
+        Caffeine<Object, Object> nearCacheBuilder = Caffeine.newBuilder()
+                .maximumSize(nearMaximumSize)
+                .expireAfterWrite(nearTtl);
+
+        return new TwoTierCacheManager(redisCacheManager, NEAR_CACHES, nearCacheBuilder, cacheInvalidationBus);
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationBus(stringRedisTemplate);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                           CacheInvalidationBus cacheInvalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
+    }
+
+    @Bean
+    public TwoTierCacheMeterBinderProvider twoTierCacheMeterBinderProvider() {
+        return new TwoTierCacheMeterBinderProvider();
+    }
+}
@@ -0,0 +1,35 @@
+package org.chessunion.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.chessunion.util.query.QueryCountingEventListener;
+import org.chessunion.util.query.QueryCountingStatementInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hooks behind {@link org.chessunion.util.query.QueryCountFilter}: a statement inspector and load/collection listeners.
+ */
+@Configuration
+public class QueryCountConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountingStatementInspector() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountingStatementInspector());
+    }
+
+    @Bean
+    public QueryCountingEventListener queryCountingEventListener(EntityManagerFactory entityManagerFactory) {
+        QueryCountingEventListener listener = new QueryCountingEventListener();
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, listener);
+        registry.appendListeners(EventType.INIT_COLLECTION, listener);
+        return listener;
+    }
+}
@@ -3,6 +3,8 @@ package org.chessunion.config;
 import org.chessunion.repository.UserRepository;
 import org.chessunion.security.JwtFilter;
 import org.chessunion.security.UserUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -22,11 +24,16 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebSecurity
@@ -40,11 +47,31 @@ public class SecurityConfig {
     @Value("${cors.url}")
     private String url;
 
+    @Value("${auth.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Threads for BCrypt checks of logins. The queue is bounded: when it is full the login is rejected
+     * with 429 instead of waiting. Metrics: executor.* with name=passwordHashing (executor.idle is the
+     * time a login waited in the queue, executor.queued is the queue depth).
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(MeterRegistry meterRegistry) {
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashingQueueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing");
+    }
+
     @Bean
     public UserDetailsService userDetailsService() {
         return new UserUserDetailsService(userRepository);
@@ -61,6 +88,8 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/api/tournament/all",
                                 "/api/tournament/*",
+                                "/api/tournament/*/events",
+                                "/api/tournament/*/export",
                                 "/api/match/**",
                                 "/api/user/top",
                                 "/api/user/profile/*",
@@ -6,13 +6,17 @@ import lombok.RequiredArgsConstructor;
 import org.chessunion.dto.RegisterCustomUserRequest;
 import org.chessunion.dto.TournamentCreateRequest;
 import org.chessunion.dto.TournamentDto;
+import org.chessunion.dto.TournamentImportReportDto;
 import org.chessunion.dto.UpdateTournamentDto;
+import org.chessunion.service.TournamentImportService;
 import org.chessunion.service.TournamentService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
@@ -24,6 +28,7 @@ import java.util.List;
 public class TournamentAdminController {
 
     private final TournamentService tournamentService;
+    private final TournamentImportService tournamentImportService;
 
     @PostMapping("/create")
     public ResponseEntity<String> createNewTournament(@RequestBody TournamentCreateRequest tournamentCreateRequest) {
@@ -36,6 +41,14 @@ public class TournamentAdminController {
         return ResponseEntity.ok(tournamentService.generateNextRound(id));
     }
 
+    /**
+     * Imports finished tournaments from TRF-16 files; ratings are replayed in the order of the tournaments' start dates.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<TournamentImportReportDto> importTournaments(@RequestParam("files") List<MultipartFile> files) {
+        return ResponseEntity.ok(tournamentImportService.importFiles(files));
+    }
+
     @GetMapping("/running")
     public ResponseEntity<List<TournamentDto>> getRunningTournaments(@PageableDefault Pageable pageable){
         return ResponseEntity.ok(tournamentService.getRunningTournaments(pageable));
@@ -2,19 +2,33 @@ package org.chessunion.controller;
 
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.chessunion.dto.RegisterCustomUserRequest;
 import org.chessunion.dto.TournamentDto;
 import org.chessunion.dto.TournamentListElementDto;
+import org.chessunion.entity.Tournament;
+import org.chessunion.event.TournamentEventBroadcaster;
+import org.chessunion.event.TournamentEventRelay;
+import org.chessunion.service.TournamentExportService;
 import org.chessunion.service.TournamentService;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.util.List;
 
@@ -24,6 +38,9 @@ import java.util.List;
 public class TournamentController {
 
     private final TournamentService tournamentService;
+    private final TournamentEventBroadcaster tournamentEventBroadcaster;
+    private final TournamentEventRelay tournamentEventRelay;
+    private final TournamentExportService tournamentExportService;
 
     @GetMapping("/all")
     @PreAuthorize("permitAll()")
@@ -37,6 +54,64 @@ public class TournamentController {
         return ResponseEntity.ok(tournamentService.findById(id));
     }
 
+    /**
+     * Live stream of the tournament: round-generated, result-entered, round-rolled-back and tournament-finished
+     * events. Event ids are sequence numbers; a client reconnecting with an old Last-Event-ID gets a resync event.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("permitAll()")
+    public SseEmitter tournamentEvents(@PathVariable int id,
+                                       @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                       HttpServletResponse response) {
+        // nginx не должен буферизовать поток
+        response.setHeader("X-Accel-Buffering", "no");
+        return tournamentEventBroadcaster.subscribe(id,
+                () -> lastEventId != null && lastEventId < tournamentEventRelay.currentSequence(id));
+    }
+
+    /**
+     * Tournament file: format=trf for FIDE TRF-16, format=pgn for the list of games. Written to a temporary file
+     * first, so the database connection is released before a slow client starts reading.
+     */
+    @GetMapping("/{id}/export")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<StreamingResponseBody> exportTournament(@PathVariable int id,
+                                                                  @RequestParam(defaultValue = "trf") String format) throws IOException {
+        Tournament tournament = tournamentExportService.getTournament(id);
+        String extension = format.toLowerCase();
+        MediaType contentType = switch (extension) {
+            case "trf" -> MediaType.parseMediaType("text/plain;charset=UTF-8");
+            case "pgn" -> MediaType.parseMediaType("application/x-chess-pgn;charset=UTF-8");
+            default -> throw new IllegalArgumentException("Unknown export format: " + format);
+        };
+
+        Path file = Files.createTempFile("tournament-" + id + "-", "." + extension);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (extension.equals("trf")) {
+                tournamentExportService.writeTrf(tournament, out);
+            } else {
+                tournamentExportService.writePgn(tournament, out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+
+        String fileName = "tournament-" + id + "." + extension;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
     @PutMapping("/{id}/registration")
     @PreAuthorize("isAuthenticated()")
     @SecurityRequirement(name = "BearerAuth")
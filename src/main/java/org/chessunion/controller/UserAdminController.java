@@ -4,7 +4,9 @@ package org.chessunion.controller;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.chessunion.dto.BanDuration;
+import org.chessunion.dto.RatingRecomputeReportDto;
 import org.chessunion.dto.UserForAdminPanelDto;
+import org.chessunion.service.RatingRecomputeService;
 import org.chessunion.service.UserService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +25,7 @@ import java.time.LocalDateTime;
 public class UserAdminController {
 
     private final UserService userService;
+    private final RatingRecomputeService ratingRecomputeService;
 
 
     @GetMapping("/list")
@@ -30,6 +33,14 @@ public class UserAdminController {
         return userService.getAllUsersForAdminPanel(pageable);
     }
 
+    /**
+     * Rebuilds all ratings from the games; by default only reports what would change.
+     */
+    @PostMapping("/ratings/recompute")
+    public RatingRecomputeReportDto recomputeRatings(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return ratingRecomputeService.recompute(dryRun);
+    }
+
     @PostMapping("/ban/{id}")
     public void banUser(@PathVariable int id, @RequestBody(required = false) BanDuration banDuration) {
         if (banDuration == null) {
@@ -16,5 +16,8 @@ public class PlayerDto implements Serializable {
     private Double score;
     private String place;
     private Double secondScore;
+    private Double buchholzCut1;
+    private Double sonnebornBerger;
+    private Double progressiveScore;
     private Integer userId;
 }
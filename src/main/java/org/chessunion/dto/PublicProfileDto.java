@@ -4,13 +4,14 @@ package org.chessunion.dto;
 import lombok.*;
 import org.springframework.data.domain.Page;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-public class PublicProfileDto {
+public class PublicProfileDto implements Serializable {
     private String firstName;
     private String lastName;
     private String surName;
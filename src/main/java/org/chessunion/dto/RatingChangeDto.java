@@ -0,0 +1,14 @@
+package org.chessunion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingChangeDto {
+    private Integer userId;
+    private double before;
+    private double after;
+}
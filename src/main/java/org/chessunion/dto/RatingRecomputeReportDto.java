@@ -0,0 +1,23 @@
+package org.chessunion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingRecomputeReportDto {
+    private boolean dryRun;
+    private int games;
+    private int users;
+    private int changedUsers;
+    private double maxChange;
+    private int waves;
+    private long millis;
+    private double gamesPerSecond;
+    // наибольшие изменения, по убыванию
+    private List<RatingChangeDto> largestChanges;
+}
@@ -0,0 +1,23 @@
+package org.chessunion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * New values of a standings row that changed; rows that did not change are not sent.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StandingChangeDto implements Serializable {
+    private Integer playerId;
+    private int place;
+    private double score;
+    private double buchholz;
+    private double buchholzCut1;
+    private double sonnebornBerger;
+    private double progressiveScore;
+}
@@ -20,4 +20,5 @@ public class TournamentCreateRequest {
     private Integer minAmountOfPlayers;
     private Integer amountOfRounds;
     private Tournament.SystemType systemType;
+    private Tournament.RatingSystem ratingSystem;
 }
@@ -5,13 +5,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.chessunion.entity.Tournament;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class TournamentDto {
+public class TournamentDto implements Serializable {
     private Integer id;
     private List<PlayerDto> players;
     private String name;
@@ -24,5 +25,6 @@ public class TournamentDto {
     private Integer amountOfRounds;
     private Tournament.Stage stage;
     private Tournament.SystemType systemType;
+    private Tournament.RatingSystem ratingSystem;
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,17 @@
+package org.chessunion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TournamentImportReportDto {
+    private int tournaments;
+    private int players;
+    private int games;
+    private int createdUsers;
+    private long millis;
+    private double gamesPerSecond;
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class Match {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "matches_seq")
+    @SequenceGenerator(name = "matches_seq", sequenceName = "matches_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +37,8 @@ public class Match {
 
     private Double result; // 1.0 - победили белые; 0.5 - ничья; 0.0 - победили черные
 
+    private boolean rated = true; // false - неявка или партия без обсчёта, рейтинг не меняется
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.chessunion.util.rating.Glicko2;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -17,7 +18,8 @@ import java.util.Set;
 public class Player {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "players_seq")
+    @SequenceGenerator(name = "players_seq", sequenceName = "players_seq", allocationSize = 50)
     private Integer id;
 
     private Double score = 0.0;
@@ -31,6 +33,12 @@ public class Player {
 
     private Double rating;
 
+    @Column(name = "rating_deviation", nullable = false)
+    private double ratingDeviation = Glicko2.DEFAULT_DEVIATION;
+
+    @Column(nullable = false)
+    private double volatility = Glicko2.DEFAULT_VOLATILITY;
+
     @ManyToOne(fetch = FetchType.LAZY)
     private Tournament tournament;
 
@@ -67,6 +75,8 @@ public class Player {
         this.colorBalance = player.getColorBalance();
         this.user = player.getUser();
         this.rating = player.getRating();
+        this.ratingDeviation = player.getRatingDeviation();
+        this.volatility = player.getVolatility();
         this.amountOfMatches = player.getAmountOfMatches();
         this.amountOfWins = player.getAmountOfWins();
         this.amountOfLosses = player.getAmountOfLosses();
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Table(name = "player_histories")
 public class PlayerHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_histories_seq")
+    @SequenceGenerator(name = "player_histories_seq", sequenceName = "player_histories_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "player_id")
@@ -28,6 +29,12 @@ public class PlayerHistory {
     @Column(name = "rating_changes")
     private Double ratingChanges = 0.0;
 
+    @Column(name = "rating_deviation_changes")
+    private Double ratingDeviationChanges = 0.0;
+
+    @Column(name = "volatility_changes")
+    private Double volatilityChanges = 0.0;
+
     @Column(name = "score_changes")
     private Double scoreChanges = 0.0;
 
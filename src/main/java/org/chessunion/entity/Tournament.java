@@ -27,6 +27,10 @@ public class Tournament {
         SWISS, ROUND_ROBIN
     }
 
+    public enum RatingSystem {
+        ELO, GLICKO2
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -62,6 +66,10 @@ public class Tournament {
     @Column(name = "system_type")
     private SystemType systemType;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rating_system", nullable = false)
+    private RatingSystem ratingSystem = RatingSystem.ELO;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,49 @@
+package org.chessunion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Materialized row of the tournament table, maintained by StandingsService.
+ */
+@Entity
+@Table(name = "tournament_standings")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TournamentStanding {
+
+    @Id
+    @Column(name = "player_id")
+    private Integer playerId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "player_id", insertable = false, updatable = false)
+    private Player player;
+
+    @Column(name = "tournament_id", nullable = false)
+    private Integer tournamentId;
+
+    private int place;
+
+    private double score;
+
+    private double buchholz;
+
+    @Column(name = "buchholz_cut1")
+    private double buchholzCut1;
+
+    @Column(name = "sonneborn_berger")
+    private double sonnebornBerger;
+
+    @Column(name = "progressive_score")
+    private double progressiveScore;
+
+    public TournamentStanding(Player player, Integer tournamentId) {
+        this.playerId = player.getId();
+        this.player = player;
+        this.tournamentId = tournamentId;
+    }
+}
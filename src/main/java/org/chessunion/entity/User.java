@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Email;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.chessunion.util.rating.Glicko2;
 import org.chessunion.validation.PhoneNumberFormatValidation;
 
 import java.time.LocalDateTime;
@@ -46,6 +47,16 @@ public class User {
     @Column(nullable = false)
     private Double rating;
 
+    // null, пока пользователь не сыграл турнир Glicko-2: тогда стартует с рейтинга Эло
+    @Column(name = "glicko_rating")
+    private Double glickoRating;
+
+    @Column(name = "rating_deviation", nullable = false)
+    private double ratingDeviation = Glicko2.DEFAULT_DEVIATION;
+
+    @Column(nullable = false)
+    private double volatility = Glicko2.DEFAULT_VOLATILITY;
+
     @Column(name = "about_self", length = 1500)
     private String aboutSelf;
 
@@ -0,0 +1,43 @@
+package org.chessunion.event;
+
+import org.chessunion.dto.MatchDto;
+import org.chessunion.dto.StandingChangeDto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Change of a running tournament, pushed to the spectators after the transaction commits.
+ *
+ * @param boards    boards of the new round or the boards that got a result
+ * @param standings rows of the table that changed
+ * @param sequence  number of the event within the tournament, assigned when it is relayed; a gap means lost events
+ */
+public record TournamentEvent(Integer tournamentId, Type type, int round, List<MatchDto> boards,
+                              List<StandingChangeDto> standings, long sequence) implements Serializable {
+
+    public TournamentEvent(Integer tournamentId, Type type, int round, List<MatchDto> boards, List<StandingChangeDto> standings) {
+        this(tournamentId, type, round, boards, standings, 0);
+    }
+
+    public TournamentEvent withSequence(long sequence) {
+        return new TournamentEvent(tournamentId, type, round, boards, standings, sequence);
+    }
+
+    public enum Type {
+        ROUND_GENERATED("round-generated"),
+        RESULT_ENTERED("result-entered"),
+        ROUND_ROLLED_BACK("round-rolled-back"),
+        TOURNAMENT_FINISHED("tournament-finished");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+    }
+}
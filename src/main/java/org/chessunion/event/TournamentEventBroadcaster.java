@@ -0,0 +1,153 @@
+package org.chessunion.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * SSE subscribers of tournaments. An idle subscriber holds no thread (the request is async); every
+ * subscriber has its own small queue drained by a virtual thread, so a slow client delays only itself.
+ * A subscriber whose queue overflows is disconnected; on reconnect it gets a resync event and reloads the page.
+ * Events come from {@link TournamentEventRelay}.
+ */
+@Component
+public class TournamentEventBroadcaster {
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeatScheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sse-heartbeat-"));
+
+    @Value("${events.sse.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${events.sse.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${events.sse.max-queued:64}")
+    private int maxQueued;
+
+    @PostConstruct
+    public void init() {
+        // комментарий не даёт nginx и браузеру закрыть простаивающее соединение
+        heartbeatScheduler.scheduleAtFixedRate(() -> subscribers.values()
+                        .forEach(set -> set.forEach(subscriber -> subscriber.offer(Frame.HEARTBEAT))),
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        sendExecutor.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * @param missedEvents whether the client missed events (its Last-Event-ID is behind), then it is told to reload
+     *                     the page; checked after the subscriber is registered, so an event published in between
+     *                     is either delivered or counted as missed
+     */
+    public SseEmitter subscribe(int tournamentId, BooleanSupplier missedEvents) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(tournamentId, emitter);
+        subscribers.compute(tournamentId, (id, set) -> {
+            Set<Subscriber> tournamentSubscribers = set == null ? ConcurrentHashMap.newKeySet() : set;
+            tournamentSubscribers.add(subscriber);
+            return tournamentSubscribers;
+        });
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+        if (missedEvents.getAsBoolean()) {
+            subscriber.offer(Frame.RESYNC);
+        }
+        return emitter;
+    }
+
+    public void deliver(int tournamentId, String eventName, long sequence, String json) {
+        Set<Subscriber> tournamentSubscribers = subscribers.get(tournamentId);
+        if (tournamentSubscribers == null || tournamentSubscribers.isEmpty()) {
+            return;
+        }
+        // JSON уже готов, все подписчики получают одну и ту же строку
+        Frame frame = new Frame(eventName, sequence, json);
+        tournamentSubscribers.forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    private record Frame(String name, long sequence, String data) {
+        static final Frame HEARTBEAT = new Frame(null, 0, null);
+        static final Frame RESYNC = new Frame("resync", 0, "{}");
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+            // без номера (Redis был недоступен) id не ставим, чтобы не сбить Last-Event-ID клиента
+            return sequence > 0 ? event.id(String.valueOf(sequence)) : event;
+        }
+    }
+
+    private class Subscriber {
+        private final int tournamentId;
+        private final SseEmitter emitter;
+        private final Queue<Frame> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(int tournamentId, SseEmitter emitter) {
+            this.tournamentId = tournamentId;
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            if (queued.incrementAndGet() > maxQueued) {
+                remove();
+                emitter.complete();
+                return;
+            }
+            queue.add(frame);
+            if (draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Frame frame;
+                while ((frame = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    try {
+                        emitter.send(frame.toEvent());
+                    } catch (IOException | IllegalStateException e) {
+                        // клиент ушёл или эмиттер уже закрыт
+                        remove();
+                        queue.clear();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        void remove() {
+            subscribers.computeIfPresent(tournamentId, (id, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
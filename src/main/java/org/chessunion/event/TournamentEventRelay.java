@@ -0,0 +1,93 @@
+package org.chessunion.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Carries tournament events between backend replicas. After commit an event gets the next number of its
+ * tournament (Redis INCR) and is published to the tournament channel in the same Lua script, so events of a
+ * tournament are published in the order of their numbers; every replica, the author included,
+ * receives it from Redis and hands it to its own SSE subscribers.
+ * Channel: {@code chessunion:tournament-events:<tournamentId>}, message: {@code eventName \n sequence \n json}.
+ */
+@Component
+@RequiredArgsConstructor
+public class TournamentEventRelay implements MessageListener {
+    public static final String CHANNEL_PREFIX = "chessunion:tournament-events:";
+    private static final String SEQUENCE_PREFIX = "chessunion:tournament-events-seq:";
+    // номер известен только внутри скрипта: JSON передаётся двумя частями вокруг значения sequence
+    private static final RedisScript<Long> PUBLISH_NEXT = RedisScript.of("""
+            local sequence = redis.call('INCR', KEYS[1])
+            redis.call('PUBLISH', ARGV[1], ARGV[2] .. '\\n' .. sequence .. '\\n' .. ARGV[3] .. sequence .. ARGV[4])
+            return sequence
+            """, Long.class);
+    private static final long SEQUENCE_MARKER = Long.MIN_VALUE;
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TournamentEventBroadcaster tournamentEventBroadcaster;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new PatternTopic(CHANNEL_PREFIX + "*"));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTournamentEvent(TournamentEvent event) {
+        try {
+            String json = toJson(event.withSequence(SEQUENCE_MARKER));
+            int marker = json.lastIndexOf(String.valueOf(SEQUENCE_MARKER));
+            redisTemplate.execute(PUBLISH_NEXT, List.of(SEQUENCE_PREFIX + event.tournamentId()),
+                    CHANNEL_PREFIX + event.tournamentId(), event.type().getEventName(),
+                    json.substring(0, marker), json.substring(marker + String.valueOf(SEQUENCE_MARKER).length()));
+        } catch (RuntimeException e) {
+            // Redis недоступен: хотя бы свои подписчики получат событие, номер у него не проставлен
+            tournamentEventBroadcaster.deliver(event.tournamentId(), event.type().getEventName(), 0, toJson(event));
+        }
+    }
+
+    /**
+     * Number of the last event of the tournament, 0 if there were none or Redis is not available.
+     */
+    public long currentSequence(int tournamentId) {
+        try {
+            String sequence = redisTemplate.opsForValue().get(SEQUENCE_PREFIX + tournamentId);
+            return sequence == null ? 0 : Long.parseLong(sequence);
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (!channel.startsWith(CHANNEL_PREFIX) || parts.length < 3) {
+            return;
+        }
+        int tournamentId = Integer.parseInt(channel.substring(CHANNEL_PREFIX.length()));
+        tournamentEventBroadcaster.deliver(tournamentId, parts[0], Long.parseLong(parts[1]), parts[2]);
+    }
+
+    private String toJson(TournamentEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
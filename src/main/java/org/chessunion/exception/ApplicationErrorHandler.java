@@ -4,6 +4,7 @@ package org.chessunion.exception;
 import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.chessunion.service.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -102,6 +103,14 @@ public class ApplicationErrorHandler {
         ), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(RoundNotFinishedException.class)
+    public ResponseEntity<AppErrorResponse> handleRoundNotFinishedException(RoundNotFinishedException e) {
+        return new ResponseEntity<>(new AppErrorResponse(
+                "Round is not finished!",
+                e.getMessage()
+        ), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MatchAlreadyHasResultException.class)
     public ResponseEntity<AppErrorResponse> handleMatchAlreadyHasResultException(MatchAlreadyHasResultException e) {
         return new ResponseEntity<>(new AppErrorResponse(
@@ -179,7 +188,9 @@ public class ApplicationErrorHandler {
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<AppErrorResponse> badCredentialsError(BadCredentialsException e) {
         AppErrorResponse errorResponse;
-        boolean result = userService.wrongPasswordAttemptFunction(e.getAuthenticationRequest().getName());
+        // запроса нет, если такого логина не существует: считать попытки не для кого
+        boolean result = e.getAuthenticationRequest() != null &&
+                userService.wrongPasswordAttemptFunction(e.getAuthenticationRequest().getName());
         if (result){
             errorResponse = new AppErrorResponse(
                     "Аккаунт заблокирован на 30 минут(3 неудачных попытки ввода пароля).",
@@ -194,6 +205,17 @@ public class ApplicationErrorHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<AppErrorResponse> handleLoginThrottledError(LoginThrottledException e) {
+        AppErrorResponse errorResponse = new AppErrorResponse(
+                "Login is temporarily unavailable!",
+                e.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<AppErrorResponse> handleAuthError(AuthenticationException e) {
         AppErrorResponse errorResponse = new AppErrorResponse(
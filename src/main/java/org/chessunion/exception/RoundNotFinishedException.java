@@ -0,0 +1,7 @@
+package org.chessunion.exception;
+
+public class RoundNotFinishedException extends RuntimeException {
+    public RoundNotFinishedException(String message) {
+        super(message);
+    }
+}
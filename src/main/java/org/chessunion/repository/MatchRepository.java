@@ -5,12 +5,14 @@ import org.chessunion.dto.MatchDto;
 import org.chessunion.entity.Match;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,21 +21,31 @@ public interface MatchRepository extends JpaRepository<Match, Integer> {
     Optional<Page<Match>> findMatchesByTournamentId(Integer tournamentId, Pageable pageable);
 
 
+    // OR по id игроков (а не по users через join) даёт BitmapOr двух индексов вместо seq scan
     @Query("""
         select m
         from Match m
-        where m.blackPlayer.user.id = :userId
-        or m.whitePlayer.user.id = :userId
+        where m.blackPlayer.id in :playerIds
+        or m.whitePlayer.id in :playerIds
     """)
-    Page<Match> findAllMatchesByUserId(@Param("userId") Integer userId, Pageable pageable);
+    Page<Match> findAllMatchesByPlayerIds(@Param("playerIds") Collection<Integer> playerIds, Pageable pageable);
 
     @Query("SELECT m FROM Match m WHERE m.whitePlayer.id = ?1 OR m.blackPlayer.id = ?1")
     List<Match> findAllMatchesByPlayerId(Integer playerId);
 
     List<Match> findAllByTournamentIdAndRoundNumber(Integer tournamentId, int roundNumber);
 
-    @Query("SELECT m.whitePlayer.id, m.blackPlayer.id FROM Match m WHERE m.whitePlayer.id = ?1 OR m.blackPlayer.id = ?1")
-    List<Object[]> findOpponentIdsByPlayerId(Integer playerId);
+    @EntityGraph(attributePaths = {"whitePlayer.user", "blackPlayer.user", "tournament"})
+    List<Match> findAllWithPlayersByIdIn(Collection<Integer> ids);
+
+    @Query("SELECT m.whitePlayer.id, m.blackPlayer.id FROM Match m WHERE m.tournament.id = ?1")
+    List<Object[]> findPlayerIdPairsByTournamentId(Integer tournamentId);
+
+    @Query("SELECT m.whitePlayer.id, m.blackPlayer.id, m.roundNumber, m.result FROM Match m WHERE m.tournament.id = ?1")
+    List<Object[]> findGameResultsByTournamentId(Integer tournamentId);
+
+    @Query("SELECT m.id, m.whitePlayer.id, m.blackPlayer.id, m.roundNumber, m.result FROM Match m WHERE m.whitePlayer.id IN ?1 OR m.blackPlayer.id IN ?1")
+    List<Object[]> findGameResultsByPlayerIds(Collection<Integer> playerIds);
 
     @Modifying
     @Query(value = "UPDATE matches SET result = null WHERE id IN (?1)", nativeQuery = true)
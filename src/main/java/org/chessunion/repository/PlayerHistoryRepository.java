@@ -21,5 +21,8 @@ public interface PlayerHistoryRepository extends JpaRepository<PlayerHistory, In
 
     void deleteAllByTournamentId(Integer tournamentId);
 
+    @Query("SELECT h.playerId, h.roundOfChanges FROM PlayerHistory h WHERE h.tournamentId = ?1 AND h.hadByeChanges = true")
+    List<Object[]> findByeRoundsByTournamentId(Integer tournamentId);
+
     Optional<List<PlayerHistory>> findAllByTournamentIdAndRoundOfChangesAndGeneratedWithRoundIsFalse(Integer tournamentId, int roundOfChanges);
 }
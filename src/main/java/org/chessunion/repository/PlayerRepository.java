@@ -6,6 +6,7 @@ import org.chessunion.entity.Tournament;
 import org.chessunion.entity.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,6 +18,14 @@ public interface PlayerRepository extends JpaRepository<Player, Integer> {
     @EntityGraph(attributePaths = {"user"})
     List<Player> findAllByTournament_Id(Integer tournamentId);
 
+    long countByTournament_Id(Integer tournamentId);
+
+    @Query("SELECT p.id FROM Player p WHERE p.user.id = ?1")
+    List<Integer> findIdsByUserId(Integer userId);
+
+    @Query("SELECT p.user.id, p.user.username FROM Player p WHERE p.tournament.id = ?1")
+    List<Object[]> findUserIdsAndUsernamesByTournamentId(Integer tournamentId);
+
 
     void deleteAllByTournamentId(Integer id);
 }
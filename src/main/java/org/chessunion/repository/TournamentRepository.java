@@ -1,13 +1,17 @@
 package org.chessunion.repository;
 
 
+import jakarta.persistence.LockModeType;
 import org.chessunion.entity.Tournament;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TournamentRepository extends JpaRepository<Tournament, Integer> {
@@ -16,4 +20,8 @@ public interface TournamentRepository extends JpaRepository<Tournament, Integer>
     List<Tournament> findByName(String name);
 
     Page<Tournament> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Tournament t WHERE t.id = ?1")
+    Optional<Tournament> findByIdForUpdate(Integer id);
 }
@@ -0,0 +1,22 @@
+package org.chessunion.repository;
+
+import org.chessunion.entity.TournamentStanding;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TournamentStandingRepository extends JpaRepository<TournamentStanding, Integer> {
+    @EntityGraph(attributePaths = {"player", "player.user"})
+    List<TournamentStanding> findAllByTournamentIdOrderByPlace(Integer tournamentId);
+
+    List<TournamentStanding> findAllByTournamentId(Integer tournamentId);
+
+    @Modifying
+    @Query("DELETE FROM TournamentStanding s WHERE s.tournamentId = ?1")
+    void deleteAllByTournamentId(Integer tournamentId);
+}
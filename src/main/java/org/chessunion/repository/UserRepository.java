@@ -4,9 +4,12 @@ package org.chessunion.repository;
 import org.chessunion.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +18,24 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
 
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesByUsername(String username);
+
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRolesByEmail(String email);
+
     boolean existsByUsername(String s);
     boolean existsByEmail(String s);
 
     Page<User> findAllByOrderByRatingDesc(Pageable pageable);
 
     List<User> findAllByFirstNameAndLastName(String firstName, String lastName);
+
+    List<User> findAllByLastNameIn(Collection<String> lastNames);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN ?1")
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    @Query("SELECT u.username FROM User u WHERE u.isBanned = true")
+    List<String> findUsernamesByIsBannedTrue();
 }
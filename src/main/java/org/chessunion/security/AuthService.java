@@ -1,53 +1,97 @@
 package org.chessunion.security;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.chessunion.dto.AuthRequest;
 import org.chessunion.dto.AuthResponse;
-import org.chessunion.repository.UserRepository;
+import org.chessunion.entity.User;
+import org.chessunion.exception.LoginThrottledException;
 import org.chessunion.service.UserService;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
-@RequiredArgsConstructor
-@Transactional
 public class AuthService {
 
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
-    private final UserUserDetailsService userUserDetailsService;
-    private final UserRepository userRepository;
     private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService passwordHashingExecutor;
+    private final MeterRegistry meterRegistry;
 
-    public AuthResponse createToken(AuthRequest authRequest) {
-        String login;
-        authRequest.setLogin(authRequest.getLogin().trim());
-
-        if (authRequest.getLogin().contains("@")){
-            login = userRepository.findByEmail(authRequest.getLogin())
-                    .orElseThrow(() -> new BadCredentialsException("Invalid email")).getUsername();
-            userService.tryToUnbanEmail(login);
-        } else {
-            login = authRequest.getLogin();
-            userService.tryToUnbanUsername(login);
-        }
+    // хэш для несуществующего пользователя: время ответа не должно выдавать, есть ли такой логин
+    private String userNotFoundPassword;
+
+    public AuthService(JwtUtil jwtUtil, UserService userService, PasswordEncoder passwordEncoder,
+                       @Qualifier("passwordHashingExecutor") ExecutorService passwordHashingExecutor,
+                       MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        userNotFoundPassword = passwordEncoder.encode("userNotFoundPassword");
+    }
 
+    /**
+     * The user is fetched (and unbanned if the ban is over) on the calling thread; BCrypt runs on the
+     * bounded hashing executor, so a login flood cannot occupy the servlet threads.
+     *
+     * @throws LoginThrottledException if the hashing queue is full
+     */
+    public CompletableFuture<AuthResponse> createToken(AuthRequest authRequest) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String login = authRequest.getLogin().trim();
+        Optional<User> user = userService.findForLogin(login);
 
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        login,
-                        authRequest.getPassword()));
-        UserDetails userDetails = userUserDetailsService.loadUserByUsername(login);
-        String role = userDetails.getAuthorities().toString();
-        if (role.contains("ROLE_ADMIN")) {
-            role = "ADMIN";
-        } else {
-            role = "USER";
+        if (user.isPresent() && user.get().isBanned()) {
+            sample.stop(loginTimer("locked"));
+            throw new LockedException("User account is locked");
         }
-        return new AuthResponse(jwtUtil.generateToken(userDetails), role);
+
+        String passwordHash = user.map(User::getPassword).orElse(userNotFoundPassword);
+        CompletableFuture<Boolean> matches;
+        try {
+            matches = CompletableFuture.supplyAsync(
+                    () -> passwordEncoder.matches(authRequest.getPassword(), passwordHash), passwordHashingExecutor);
+        } catch (RejectedExecutionException e) {
+            sample.stop(loginTimer("rejected"));
+            throw new LoginThrottledException("Too many login attempts, try again later.");
+        }
+
+        return matches.thenApply(matched -> {
+            if (user.isEmpty()) {
+                sample.stop(loginTimer("bad_credentials"));
+                throw new BadCredentialsException("Bad credentials");
+            }
+            if (!matched) {
+                sample.stop(loginTimer("bad_credentials"));
+                BadCredentialsException e = new BadCredentialsException("Bad credentials");
+                e.setAuthenticationRequest(UsernamePasswordAuthenticationToken.unauthenticated(user.get().getUsername(), null));
+                throw e;
+            }
+            UserUserDetails userDetails = new UserUserDetails(user.get());
+            String role = userDetails.getAuthorities().toString().contains("ROLE_ADMIN") ? "ADMIN" : "USER";
+            sample.stop(loginTimer("success"));
+            return new AuthResponse(jwtUtil.generateToken(userDetails), role);
+        });
+    }
+
+    private Timer loginTimer(String outcome) {
+        return meterRegistry.timer("auth.login", "outcome", outcome);
     }
-}
\ No newline at end of file
+}
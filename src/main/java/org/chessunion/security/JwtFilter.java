@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,13 +22,18 @@ import java.io.IOException;
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final UserUserDetailsService userUserDetailsService;
+    private final TokenRevocationList tokenRevocationList;
+
+    // true: принципал строится из claim "roles" без запроса в БД, баны и смена ролей проверяются по TokenRevocationList
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
+        VerifiedToken verifiedToken = null;
 
         String path = request.getServletPath();
 
@@ -37,13 +43,12 @@ public class JwtFilter extends OncePerRequestFilter {
         }
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtUtil.getUsernameFromToken(token);
+            verifiedToken = verifiedTokenCache.verify(authHeader.substring(7));
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userUserDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(token, userDetails)) {
+        if (verifiedToken != null && verifiedToken.username() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = stateless ? statelessUserDetails(verifiedToken) : databaseUserDetails(verifiedToken);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -51,4 +56,16 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails statelessUserDetails(VerifiedToken verifiedToken) {
+        if (tokenRevocationList.isRevoked(verifiedToken.username(), verifiedToken.issuedAt())) {
+            return null;
+        }
+        return new UserUserDetails(verifiedToken.username(), verifiedToken.authorities());
+    }
+
+    private UserDetails databaseUserDetails(VerifiedToken verifiedToken) {
+        UserDetails userDetails = userUserDetailsService.loadUserByUsername(verifiedToken.username());
+        return jwtUtil.validateToken(verifiedToken, userDetails) ? userDetails : null;
+    }
+}
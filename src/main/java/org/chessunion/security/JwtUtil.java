@@ -2,17 +2,21 @@ package org.chessunion.security;
 
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +31,22 @@ public class JwtUtil {
     @Value("${jwt.lifetime}")
     private Duration jwtLifetime;
 
+    // ключ и парсер потокобезопасны, собираем их один раз
+    private SecretKey key;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+    }
+
+    public Duration getJwtLifetime() {
+        return jwtLifetime;
+    }
+
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         List<String> rolesList = userDetails.getAuthorities().stream()
@@ -38,8 +58,6 @@ public class JwtUtil {
         Date issuedDate = new Date();
         Date expiredDate = new Date(issuedDate.getTime() + jwtLifetime.toMillis());
 
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-
         return Jwts.builder()
                 .claims(claims)
                 .subject(userDetails.getUsername())
@@ -49,26 +67,29 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        return parseToken(token).getSubject();
+    /**
+     * Verifies the signature and expiration; throws {@link io.jsonwebtoken.JwtException} otherwise.
+     */
+    public Claims parseToken(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private Claims parseToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public String getUsernameFromToken(String token) {
+        return parseToken(token).getSubject();
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public List<SimpleGrantedAuthority> getAuthorities(Claims claims) {
+        List<?> roles = claims.get("roles", List.class);
+        if (roles == null) {
+            return List.of();
+        }
+        return roles.stream()
+                .map(String::valueOf)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
     }
 
-    public boolean isTokenExpired(String token) {
-        return parseToken(token).getExpiration().before(new Date());
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.username().equals(userDetails.getUsername()) && token.expiresAt().isAfter(Instant.now());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package org.chessunion.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.chessunion.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Usernames whose tokens issued before a given instant are no longer accepted: banned, deleted users
+ * and users whose roles changed. Lets the stateless {@link JwtFilter} skip the user lookup.
+ * <p>
+ * The cutoff of a user is stored in Redis under {@code chessunion:token-revoked:<username>} for the token
+ * lifetime, so it survives restarts and is shared by all replicas. Each replica keeps the cutoffs it has
+ * read for {@code jwt.revocation.refresh}; a revocation is also pushed over pub/sub (message:
+ * {@code username \n epochMilli}) so the other replicas apply it at once instead of after the refresh.
+ */
+@Component
+public class TokenRevocationList implements MessageListener {
+    public static final String CHANNEL = "chessunion:token-revocation";
+    private static final String KEY_PREFIX = "chessunion:token-revoked:";
+    // отметка "не отозван", null в кэше Caffeine не хранится
+    private static final Instant NOT_REVOKED = Instant.EPOCH;
+
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final LoadingCache<String, Instant> revokedBefore;
+
+    public TokenRevocationList(UserRepository userRepository, JwtUtil jwtUtil, VerifiedTokenCache verifiedTokenCache,
+                               StringRedisTemplate redisTemplate, RedisMessageListenerContainer redisMessageListenerContainer,
+                               @Value("${jwt.revocation.refresh:30s}") Duration refresh) {
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.redisTemplate = redisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(refresh)
+                .build(this::load);
+    }
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        // баны, выданные до того, как отзыв стал храниться в Redis: момент неизвестен, отзываем всё до старта
+        Instant startedAt = Instant.now();
+        for (String username : userRepository.findUsernamesByIsBannedTrue()) {
+            redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + username, String.valueOf(startedAt.toEpochMilli()),
+                    jwtUtil.getJwtLifetime());
+        }
+    }
+
+    /**
+     * Rejects every token of the user issued up to now; the user has to log in again.
+     */
+    public void revoke(String username) {
+        Instant instant = Instant.now();
+        redisTemplate.opsForValue().set(KEY_PREFIX + username, String.valueOf(instant.toEpochMilli()), jwtUtil.getJwtLifetime());
+        apply(username, instant);
+        redisTemplate.convertAndSend(CHANNEL, username + "\n" + instant.toEpochMilli());
+    }
+
+    public boolean isRevoked(String username, Instant issuedAt) {
+        Instant instant = revokedBefore.get(username);
+        if (instant.equals(NOT_REVOKED)) {
+            return false;
+        }
+        // iat в токене хранится с точностью до секунды: токен, выданный в ту же секунду, что и отзыв,
+        // мог быть выдан и до него, поэтому отзывается вся эта секунда
+        return issuedAt == null || !issuedAt.isAfter(instant.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 2);
+        if (parts.length == 2) {
+            apply(parts[0], Instant.ofEpochMilli(Long.parseLong(parts[1])));
+        }
+    }
+
+    private void apply(String username, Instant instant) {
+        revokedBefore.asMap().merge(username, instant, (a, b) -> a.isAfter(b) ? a : b);
+        verifiedTokenCache.invalidateUser(username);
+    }
+
+    private Instant load(String username) {
+        String value = redisTemplate.opsForValue().get(KEY_PREFIX + username);
+        return value == null ? NOT_REVOKED : Instant.ofEpochMilli(Long.parseLong(value));
+    }
+}
@@ -23,6 +23,14 @@ public class UserUserDetails implements UserDetails {
         accountLocked = user.isBanned();
     }
 
+    // принципал из подписанного токена: роли берутся из claim "roles", пароля нет
+    public UserUserDetails(String name, List<SimpleGrantedAuthority> authorities) {
+        this.name = name;
+        this.password = null;
+        this.authorities = authorities;
+        this.accountLocked = false;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
@@ -0,0 +1,12 @@
+package org.chessunion.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a token whose signature has already been checked.
+ */
+public record VerifiedToken(String username, List<SimpleGrantedAuthority> authorities, Instant issuedAt, Instant expiresAt) {
+}
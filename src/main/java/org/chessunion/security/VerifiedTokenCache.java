@@ -0,0 +1,67 @@
+package org.chessunion.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Tokens already verified by this replica, keyed by SHA-256 of the token, so a repeated bearer token
+ * costs a hash lookup instead of an HMAC check and a claims parse. An entry lives until the token expires.
+ */
+@Component
+public class VerifiedTokenCache {
+    private final JwtUtil jwtUtil;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil, @Value("${jwt.verified-cache.maximum-size:100000}") long maximumSize) {
+        this.jwtUtil = jwtUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.creating((String key, VerifiedToken token) ->
+                        Duration.between(Instant.now(), token.expiresAt())))
+                .build();
+    }
+
+    /**
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is forged or expired; such tokens are not cached.
+     */
+    public VerifiedToken verify(String token) {
+        String key = digest(token);
+        VerifiedToken verified = cache.getIfPresent(key);
+        if (verified != null && verified.expiresAt().isAfter(Instant.now())) {
+            return verified;
+        }
+        Claims claims = jwtUtil.parseToken(token);
+        verified = new VerifiedToken(
+                claims.getSubject(),
+                jwtUtil.getAuthorities(claims),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant());
+        cache.put(key, verified);
+        return verified;
+    }
+
+    public void invalidateUser(String username) {
+        // бан и смена ролей редки, поэтому индекс по имени не держим
+        cache.asMap().values().removeIf(token -> username.equals(token.username()));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
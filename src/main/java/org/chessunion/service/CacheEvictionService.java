@@ -0,0 +1,79 @@
+package org.chessunion.service;
+
+import lombok.RequiredArgsConstructor;
+import org.chessunion.config.CacheConfig;
+import org.chessunion.repository.PlayerRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Key-level eviction for the write paths. Caches are transaction aware, so evictions made inside
+ * a transaction are applied after its commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class CacheEvictionService {
+    private final CacheManager cacheManager;
+    private final PlayerRepository playerRepository;
+
+    /**
+     * Tournament page, standings and pairings of rounds 1..lastRound.
+     */
+    public void evictTournament(int tournamentId, int lastRound) {
+        evict(CacheConfig.TOURNAMENTS, tournamentId);
+        evict(CacheConfig.STANDINGS, tournamentId);
+        Cache roundPairings = cacheManager.getCache(CacheConfig.ROUND_PAIRINGS);
+        if (roundPairings != null) {
+            for (int round = 0; round <= lastRound; round++) {
+                roundPairings.evict(roundPairingsKey(tournamentId, round));
+            }
+        }
+    }
+
+    /**
+     * Profiles of everyone registered in the tournament (their match lists or ratings changed).
+     */
+    public void evictTournamentPlayers(int tournamentId) {
+        for (Object[] user : playerRepository.findUserIdsAndUsernamesByTournamentId(tournamentId)) {
+            evictUser((Integer) user[0], (String) user[1]);
+        }
+    }
+
+    public void evictUser(Integer userId, String username) {
+        evict(CacheConfig.PUBLIC_PROFILES, userId);
+        evict(CacheConfig.PROFILES, username);
+    }
+
+    // рейтинг-лист постраничный: изменение рейтинга сдвигает все страницы
+    public void evictTopList() {
+        Cache topList = cacheManager.getCache(CacheConfig.TOP_LIST);
+        if (topList != null) {
+            topList.clear();
+        }
+    }
+
+    /**
+     * Everything that shows ratings, after they were recomputed for many users at once.
+     */
+    public void evictRatings() {
+        for (String cacheName : new String[]{CacheConfig.PUBLIC_PROFILES, CacheConfig.PROFILES, CacheConfig.TOP_LIST,
+                CacheConfig.TOURNAMENTS, CacheConfig.STANDINGS, CacheConfig.ROUND_PAIRINGS}) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    public static String roundPairingsKey(int tournamentId, int round) {
+        return tournamentId + ":" + round;
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
+}
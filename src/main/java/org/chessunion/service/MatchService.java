@@ -2,29 +2,34 @@ package org.chessunion.service;
 
 
 import lombok.RequiredArgsConstructor;
+import org.chessunion.config.CacheConfig;
 import org.chessunion.dto.MatchDto;
+import org.chessunion.dto.MatchPair;
 import org.chessunion.dto.MatchResultSetRequest;
 import org.chessunion.dto.PlayerDto;
+import org.chessunion.dto.StandingChangeDto;
 import org.chessunion.entity.Match;
 import org.chessunion.entity.Player;
 import org.chessunion.entity.PlayerHistory;
 import org.chessunion.entity.Tournament;
+import org.chessunion.event.TournamentEvent;
 import org.chessunion.exception.MatchAlreadyHasResultException;
 import org.chessunion.exception.MatchNotFoundException;
 import org.chessunion.exception.TournamentNotFoundException;
 import org.chessunion.repository.MatchRepository;
 import org.chessunion.repository.PlayerHistoryRepository;
 import org.chessunion.repository.PlayerRepository;
-import org.chessunion.util.rating.SimpleRatingCalculator;
+import org.chessunion.util.rating.RatingCalculatorResolver;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -32,45 +37,59 @@ import java.util.List;
 public class MatchService {
 
     private final MatchRepository matchRepository;
-    private final SimpleRatingCalculator simpleRatingCalculator;
+    private final RatingCalculatorResolver ratingCalculatorResolver;
     private final PlayerRepository playerRepository;
     private final ModelMapper modelMapper;
     private final PlayerService playerService;
     private final PlayerHistoryRepository playerHistoryRepository;
     private final PlayerHistoryService playerHistoryService;
+    private final StandingsService standingsService;
+    private final CacheEvictionService cacheEvictionService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
 
+    /**
+     * Creates all games of the current round at once: matches and histories go out as batched inserts
+     * on flush, the players (managed entities of the tournament) are updated by dirty checking.
+     */
     @Transactional
-    public void createMatch(Player firstPlayer, Player secondPlayer, Tournament tournament) {
-        Match match = new Match();
-
-        match.setTournament(tournament);
-        match.setRoundNumber(tournament.getCurrentRound());
-        match.setCreatedAt(LocalDateTime.now());
-
-        PlayerHistory firstPlayerHistory = new PlayerHistory(tournament.getId(), firstPlayer.getId(), LocalDateTime.now(), tournament.getCurrentRound());
-        PlayerHistory secondPlayerHistory = new PlayerHistory(tournament.getId(), secondPlayer.getId(), LocalDateTime.now(), tournament.getCurrentRound());
-
-        firstPlayer.setColorBalance(firstPlayer.getColorBalance() - 1);
-        System.out.println(firstPlayer.getColorHistory());
-        firstPlayer.setColorHistory(firstPlayer.getColorHistory() + 'w');
-        firstPlayerHistory.setColorBalanceChanges(-1);
-        firstPlayerHistory.setGeneratedWithRound(true);
-
-        secondPlayer.setColorBalance(secondPlayer.getColorBalance() + 1);
-        secondPlayer.setColorHistory(secondPlayer.getColorHistory() + 'b');
-        secondPlayerHistory.setColorBalanceChanges(1);
-        secondPlayerHistory.setGeneratedWithRound(true);
-
-        match.setWhitePlayer(firstPlayer);
-        match.setBlackPlayer(secondPlayer);
+    public void createRound(List<MatchPair> pairs, Tournament tournament) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Match> matches = new ArrayList<>(pairs.size());
+        List<PlayerHistory> playerHistories = new ArrayList<>(pairs.size() * 2);
+
+        for (MatchPair pair : pairs) {
+            Player whitePlayer = pair.getWhitePlayer();
+            Player blackPlayer = pair.getBlackPlayer();
+
+            Match match = new Match();
+            match.setTournament(tournament);
+            match.setRoundNumber(tournament.getCurrentRound());
+            match.setCreatedAt(now);
+            match.setWhitePlayer(whitePlayer);
+            match.setBlackPlayer(blackPlayer);
+            matches.add(match);
+
+            PlayerHistory whitePlayerHistory = new PlayerHistory(tournament.getId(), whitePlayer.getId(), now, tournament.getCurrentRound());
+            PlayerHistory blackPlayerHistory = new PlayerHistory(tournament.getId(), blackPlayer.getId(), now, tournament.getCurrentRound());
+
+            whitePlayer.setColorBalance(whitePlayer.getColorBalance() - 1);
+            whitePlayer.setColorHistory(whitePlayer.getColorHistory() + 'w');
+            whitePlayerHistory.setColorBalanceChanges(-1);
+            whitePlayerHistory.setGeneratedWithRound(true);
+
+            blackPlayer.setColorBalance(blackPlayer.getColorBalance() + 1);
+            blackPlayer.setColorHistory(blackPlayer.getColorHistory() + 'b');
+            blackPlayerHistory.setColorBalanceChanges(1);
+            blackPlayerHistory.setGeneratedWithRound(true);
+
+            playerHistories.add(whitePlayerHistory);
+            playerHistories.add(blackPlayerHistory);
+        }
 
         //сохранение в бд
-        playerRepository.save(firstPlayer);
-        playerRepository.save(secondPlayer);
-        matchRepository.save(match);
-        playerHistoryRepository.save(firstPlayerHistory);
-        playerHistoryRepository.save(secondPlayerHistory);
+        matchRepository.saveAll(matches);
+        playerHistoryRepository.saveAll(playerHistories);
     }
 
 
@@ -86,35 +105,126 @@ public class MatchService {
         }
 
         match.setResult(result);
-        Player whitePlayerBefore = match.getWhitePlayer();
-        Player blackPlayerBefore = match.getBlackPlayer();
-        match = simpleRatingCalculator.calculate(match);
-
-        match.getWhitePlayer().addScore(result);
-        match.getBlackPlayer().addScore(Math.abs(result - 1));
-
-        playerHistoryService.savePlayerDifference(whitePlayerBefore, match.getWhitePlayer(), match.getTournament().getId(), match.getTournament().getCurrentRound());
-        playerHistoryService.savePlayerDifference(blackPlayerBefore, match.getBlackPlayer(), match.getTournament().getId(), match.getTournament().getCurrentRound());
+        Tournament tournament = match.getTournament();
+        List<PlayerHistory> histories = applyResult(match, result, tournament);
+        playerHistoryRepository.saveAll(histories);
 
         playerRepository.save(match.getWhitePlayer());
         playerRepository.save(match.getBlackPlayer());
         matchRepository.save(match);
+        List<StandingChangeDto> standingChanges = standingsService.applyResult(match);
+        evictMatchCaches(match);
 
-        return matchToMatchDto(match);
+        MatchDto matchDto = matchToMatchDto(match);
+        applicationEventPublisher.publishEvent(new TournamentEvent(match.getTournament().getId(),
+                TournamentEvent.Type.RESULT_ENTERED, match.getRoundNumber(), List.of(matchDto), standingChanges));
+        return matchDto;
     }
 
+    /**
+     * Enters the results of many games at once: one query loads the matches with players and users,
+     * everything is validated before anything changes, ratings are calculated in memory and the
+     * players, matches and histories are flushed as batched statements.
+     */
     @Transactional
-    public List<MatchDto> setResultToListOfMatches(List<MatchResultSetRequest> matches) {
-        List<MatchDto> matchDtoList = new ArrayList<>();
-        for (MatchResultSetRequest match : matches) {
-            matchDtoList.add(setMatchResult(match.getId(), match.getResult()));
+    public List<MatchDto> setResultToListOfMatches(List<MatchResultSetRequest> results) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (MatchResultSetRequest request : results) {
+            if (request.getResult() != 0.0 && request.getResult() != 0.5 && request.getResult() != 1.0) {
+                throw new IllegalArgumentException("Not a valid match result: " + request.getResult() + " (match id: " + request.getId() + ")");
+            }
+            if (!ids.add(request.getId())) {
+                throw new IllegalArgumentException("Match id is repeated: " + request.getId());
+            }
+        }
+
+        Map<Integer, Match> matchesById = new HashMap<>();
+        for (Match match : matchRepository.findAllWithPlayersByIdIn(ids)) {
+            matchesById.put(match.getId(), match);
+        }
+        for (MatchResultSetRequest request : results) {
+            Match match = matchesById.get(request.getId());
+            if (match == null) {
+                throw new MatchNotFoundException(request.getId());
+            }
+            if (match.getResult() != null) {
+                throw new MatchAlreadyHasResultException(String.format("Match id: %s, has result: %s, tried to set: %s", match.getId(), match.getResult(), request.getResult()));
+            }
+        }
+
+        List<PlayerHistory> playerHistories = new ArrayList<>(results.size() * 2);
+        // по id: блокировки таблиц турниров берутся в одном порядке
+        Map<Integer, Tournament> tournaments = new TreeMap<>();
+        List<MatchDto> matchDtoList = new ArrayList<>(results.size());
+        // событие несёт номер тура своих партий: в пакете могут быть доигранные партии прошлых туров
+        Map<Integer, NavigableMap<Integer, List<MatchDto>>> boardsByTournament = new HashMap<>();
+        // кэши сбрасываются один раз на турнир и на пользователя, а не на каждую доску
+        Map<Integer, String> users = new HashMap<>();
+        for (MatchResultSetRequest request : results) {
+            Match match = matchesById.get(request.getId());
+            Tournament tournament = match.getTournament();
+
+            match.setResult(request.getResult());
+            playerHistories.addAll(applyResult(match, request.getResult(), tournament));
+
+            tournaments.putIfAbsent(tournament.getId(), tournament);
+            MatchDto matchDto = matchToMatchDto(match);
+            matchDtoList.add(matchDto);
+            boardsByTournament.computeIfAbsent(tournament.getId(), tournamentId -> new TreeMap<>())
+                    .computeIfAbsent(match.getRoundNumber(), round -> new ArrayList<>()).add(matchDto);
+            users.put(match.getWhitePlayer().getUser().getId(), match.getWhitePlayer().getUser().getUsername());
+            users.put(match.getBlackPlayer().getUser().getId(), match.getBlackPlayer().getUser().getUsername());
+        }
+        for (Tournament tournament : tournaments.values()) {
+            cacheEvictionService.evictTournament(tournament.getId(), tournament.getCurrentRound());
+        }
+        users.forEach(cacheEvictionService::evictUser);
+
+        playerHistoryRepository.saveAll(playerHistories);
+        for (Tournament tournament : tournaments.values()) {
+            List<StandingChangeDto> standingChanges = standingsService.rebuild(tournament);
+            NavigableMap<Integer, List<MatchDto>> boardsByRound = boardsByTournament.get(tournament.getId());
+            for (Map.Entry<Integer, List<MatchDto>> boards : boardsByRound.entrySet()) {
+                // изменения таблицы общие для всего пакета, их несёт событие последнего тура
+                List<StandingChangeDto> roundStandings = boards.getKey().equals(boardsByRound.lastKey()) ? standingChanges : List.of();
+                applicationEventPublisher.publishEvent(new TournamentEvent(tournament.getId(), TournamentEvent.Type.RESULT_ENTERED,
+                        boards.getKey(), boards.getValue(), roundStandings));
+            }
         }
         return matchDtoList;
     }
 
+    private void evictMatchCaches(Match match) {
+        cacheEvictionService.evictTournament(match.getTournament().getId(), match.getTournament().getCurrentRound());
+        cacheEvictionService.evictUser(match.getWhitePlayer().getUser().getId(), match.getWhitePlayer().getUser().getUsername());
+        cacheEvictionService.evictUser(match.getBlackPlayer().getUser().getId(), match.getBlackPlayer().getUser().getUsername());
+    }
+
+    // рейтинг и счётчики меняются прямо в управляемых игроках, без копий сущностей
+    private List<PlayerHistory> applyResult(Match match, double result, Tournament tournament) {
+        Player whitePlayer = match.getWhitePlayer();
+        Player blackPlayer = match.getBlackPlayer();
+        double whiteRatingBefore = whitePlayer.getRating();
+        double blackRatingBefore = blackPlayer.getRating();
+
+        ratingCalculatorResolver.forTournament(tournament).apply(whitePlayer, blackPlayer, result);
+        whitePlayer.addScore(result);
+        blackPlayer.addScore(Math.abs(result - 1));
+
+        // история партии пишется под туром самой партии: доигранная партия прошлого тура откатывается вместе со своим туром,
+        // а пересчёт рейтинга находит её строку по номеру тура
+        return List.of(
+                playerHistoryService.resultHistory(whitePlayer, whiteRatingBefore, result, tournament.getId(), match.getRoundNumber()),
+                playerHistoryService.resultHistory(blackPlayer, blackRatingBefore, Math.abs(result - 1), tournament.getId(), match.getRoundNumber()));
+    }
+
 
     public Page<MatchDto> findAllMatchesByUserId(Integer userId, Pageable pageable) {
-        return matchRepository.findAllMatchesByUserId(userId, pageable).map(this::matchToMatchDto);
+        List<Integer> playerIds = playerRepository.findIdsByUserId(userId);
+        if (playerIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return matchRepository.findAllMatchesByPlayerIds(playerIds, pageable).map(this::matchToMatchDto);
     }
 
 
@@ -148,6 +258,7 @@ public class MatchService {
                 .orElseThrow(() -> new TournamentNotFoundException(tournamentId)).map(this::matchToMatchDto);
     }
 
+    @Cacheable(cacheNames = CacheConfig.ROUND_PAIRINGS, key = "#tournamentId + ':' + #roundNumber")
     public List<MatchDto> findMatchesByTournamentRound(int tournamentId, int roundNumber) {
         return matchRepository.findAllByTournamentIdAndRoundNumber(tournamentId, roundNumber).stream()
                 .map(this::matchToMatchDto)
@@ -6,10 +6,13 @@ import org.chessunion.entity.PhoneNumber;
 import org.chessunion.exception.*;
 import org.chessunion.repository.PhoneNumberRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.ClientHttpRequestFactorySettings;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Random;
 
@@ -19,6 +22,14 @@ import java.util.Random;
 public class PhoneNumberService {
     private final PhoneNumberRepository phoneNumberRepository;
 
+    // клиент потокобезопасен; таймауты не дают зависшему SMS-шлюзу держать поток запроса
+    private final RestClient restClient = RestClient.builder()
+            .baseUrl("https://ssl.bs00.ru")
+            .requestFactory(ClientHttpRequestFactoryBuilder.jdk().build(ClientHttpRequestFactorySettings.defaults()
+                    .withConnectTimeout(Duration.ofSeconds(5))
+                    .withReadTimeout(Duration.ofSeconds(10))))
+            .build();
+
     @Value("${sms.api.key}")
     private String smsApiKey;
 
@@ -150,10 +161,6 @@ public class PhoneNumberService {
         String senderName = smsSenderName;
 
 
-        RestClient restClient = RestClient.builder()
-                .baseUrl("https://ssl.bs00.ru")
-                .build();
-
         System.out.println(text);
 //        System.out.println(restClient.post()
 //                .uri(String.format("/?method=push_msg&key=%s&text=%s&phone=%s&sender_name=%s&format=json", smsApiKey, text, phoneNumber, senderName))
@@ -50,13 +50,16 @@ public class PlayerHistoryService {
 
     public Player rollbackMapPlayer(Player player, PlayerHistory playerHistory){
         player.setRating(player.getRating() - playerHistory.getRatingChanges());
+        player.setRatingDeviation(player.getRatingDeviation() - playerHistory.getRatingDeviationChanges());
+        player.setVolatility(player.getVolatility() - playerHistory.getVolatilityChanges());
         player.setScore(player.getScore() - playerHistory.getScoreChanges());
         player.setAmountOfMatches(player.getAmountOfMatches() - playerHistory.getAmountOfMatchesChanges());
         player.setAmountOfLosses(player.getAmountOfLosses() - playerHistory.getAmountOfLossesChanges());
         player.setAmountOfDraws(player.getAmountOfDraws() - playerHistory.getAmountOfDrawsChanges());
         player.setAmountOfWins(player.getAmountOfWins() - playerHistory.getAmountOfWinsChanges());
         player.setColorBalance(player.getColorBalance() - playerHistory.getColorBalanceChanges());
-        if (!player.getColorHistory().isEmpty()) {
+        // цвет добавляет только запись генерации тура
+        if (playerHistory.getColorBalanceChanges() != 0 && !player.getColorHistory().isEmpty()) {
             player.setColorHistory(player.getColorHistory().substring(0, player.getColorHistory().length() - 1));
         }
         if (playerHistory.getHadByeChanges()){
@@ -66,11 +69,32 @@ public class PlayerHistoryService {
         return player;
     }
 
-    @Transactional
-    public void savePlayerDifference(Player whitePlayerBefore, Player whitePlayer, int tournamentId, int round) {
+    /**
+     * History of one game result applied in place: the rating moved from ratingBefore, one game and the points were added.
+     */
+    public PlayerHistory resultHistory(Player player, double ratingBefore, double points, int tournamentId, int round) {
+        PlayerHistory playerHistory = new PlayerHistory(tournamentId, player.getId(), LocalDateTime.now(), round);
+
+        playerHistory.setRatingChanges(player.getRating() - ratingBefore);
+        playerHistory.setScoreChanges(points);
+        playerHistory.setAmountOfMatchesChanges(1);
+        if (points == 1) {
+            playerHistory.setAmountOfWinsChanges(1);
+        } else if (points == 0.5) {
+            playerHistory.setAmountOfDrawsChanges(1);
+        } else {
+            playerHistory.setAmountOfLossesChanges(1);
+        }
+
+        return playerHistory;
+    }
+
+    public PlayerHistory playerDifference(Player whitePlayerBefore, Player whitePlayer, int tournamentId, int round) {
         PlayerHistory playerHistory = new PlayerHistory(tournamentId, whitePlayer.getId(), LocalDateTime.now(), round);
 
         playerHistory.setRatingChanges(whitePlayer.getRating() - whitePlayerBefore.getRating());
+        playerHistory.setRatingDeviationChanges(whitePlayer.getRatingDeviation() - whitePlayerBefore.getRatingDeviation());
+        playerHistory.setVolatilityChanges(whitePlayer.getVolatility() - whitePlayerBefore.getVolatility());
         playerHistory.setScoreChanges(whitePlayer.getScore() - whitePlayerBefore.getScore());
 
         playerHistory.setAmountOfMatchesChanges(whitePlayer.getAmountOfMatches() - whitePlayerBefore.getAmountOfMatches());
@@ -81,6 +105,6 @@ public class PlayerHistoryService {
         playerHistory.setColorBalanceChanges(whitePlayer.getColorBalance() - whitePlayerBefore.getColorBalance());
         playerHistory.setHadByeChanges(whitePlayer.isHadBye() != whitePlayerBefore.isHadBye());
 
-        playerHistoryRepository.save(playerHistory);
+        return playerHistory;
     }
 }
@@ -3,18 +3,19 @@ package org.chessunion.service;
 
 import lombok.RequiredArgsConstructor;
 import org.chessunion.dto.PlayerDto;
-import org.chessunion.entity.Match;
 import org.chessunion.entity.Player;
 import org.chessunion.exception.PlayerNotFoundException;
 import org.chessunion.repository.MatchRepository;
 import org.chessunion.repository.PlayerRepository;
+import org.chessunion.util.pairing.PairingState;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -23,45 +24,36 @@ public class PlayerService {
     private final MatchRepository matchRepository;
     private final PlayerRepository playerRepository;
     private final ModelMapper modelMapper;
+    private final CacheEvictionService cacheEvictionService;
 
     public String getFullName(Player player) {
         return player.getUser().getFirstName() + " " + player.getUser().getLastName();
     }
 
-    public Double calculateSecondScore(Player player){
-        List<Match> matchesPlayed = matchRepository.findAllMatchesByPlayerId(player.getId());
-
-        Double secondRating = 0.0;
-
-
-        for (Match match : matchesPlayed){
-            Player whitePlayer = match.getWhitePlayer();
-            Player blackPlayer = match.getBlackPlayer();
-            if (whitePlayer.equals(player)){
-                secondRating += blackPlayer.getScore();
-            } else{
-                secondRating += whitePlayer.getScore();
-            }
-        }
-        return secondRating;
+    /**
+     * Pairing snapshot of the given players of a tournament; every game of the tournament is loaded
+     * with a single query for the opponent graph.
+     */
+    public PairingState.Builder pairingSnapshot(Integer tournamentId, Collection<Player> players) {
+        return pairingSnapshot(players, matchRepository.findPlayerIdPairsByTournamentId(tournamentId));
     }
 
-    public Set<Integer> getAllOpponentIds(Player player) {
-        // Получаем только ID противников - это быстрее и безопаснее
-        Set<Integer> opponentIds = new HashSet<>();
-        List<Object[]> results = matchRepository.findOpponentIdsByPlayerId(player.getId());
-
-        for (Object[] result : results) {
-            Integer whiteId = (Integer) result[0];
-            Integer blackId = (Integer) result[1];
-
-            if (player.getId().equals(whiteId)) {
-                opponentIds.add(blackId);
-            } else {
-                opponentIds.add(whiteId);
-            }
+    /**
+     * @param playerIdPairs white and black player ids of the games played so far
+     */
+    public PairingState.Builder pairingSnapshot(Collection<Player> players, List<Object[]> playerIdPairs) {
+        PairingState.Builder snapshot = PairingState.builder(players.size());
+        // порядок по id: при равных очках и рейтинге жеребьёвка не зависит от порядка строк из БД
+        List<Player> ordered = new ArrayList<>(players);
+        ordered.sort(Comparator.comparing(Player::getId));
+        for (Player player : ordered) {
+            snapshot.player(player.getId(), player.getScore(), player.getRating(),
+                    player.getColorBalance(), player.getColorHistory(), player.isHadBye());
+        }
+        for (Object[] pair : playerIdPairs) {
+            snapshot.game((Integer) pair[0], (Integer) pair[1]);
         }
-        return opponentIds;
+        return snapshot;
     }
 
     @Transactional
@@ -69,6 +61,7 @@ public class PlayerService {
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new PlayerNotFoundException(playerId));
         playerRepository.delete(player);
+        cacheEvictionService.evictTournament(player.getTournament().getId(), player.getTournament().getCurrentRound());
     }
 
     public List<PlayerDto> getAllPlayersOfTournament(Integer tournamentId) {
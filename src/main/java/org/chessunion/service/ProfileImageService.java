@@ -27,6 +27,10 @@ public class ProfileImageService {
     private static final long MAX_SIZE_BYTES = 5L * 1024 * 1024;
     private final UserRepository userRepository;
 
+    static {
+        // без дискового кэша ImageIO декодирует загрузку в памяти, не создавая временных файлов на каждый запрос
+        ImageIO.setUseCache(false);
+    }
 
     public void saveProfileImage(MultipartFile file, Principal principal) {
         Integer userId = userRepository.findByUsername(principal.getName()).orElseThrow(() -> new RuntimeException("User not found")).getId();
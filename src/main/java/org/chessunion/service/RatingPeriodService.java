@@ -0,0 +1,104 @@
+package org.chessunion.service;
+
+import org.chessunion.entity.Match;
+import org.chessunion.entity.Player;
+import org.chessunion.entity.PlayerHistory;
+import org.chessunion.entity.Tournament;
+import org.chessunion.exception.RoundNotFinishedException;
+import org.chessunion.repository.MatchRepository;
+import org.chessunion.repository.PlayerHistoryRepository;
+import org.chessunion.util.rating.Glicko2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rating periods of Glicko-2 tournaments: a finished round is rated at once for the whole field.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RatingPeriodService {
+    private final MatchRepository matchRepository;
+    private final PlayerHistoryRepository playerHistoryRepository;
+    private final Glicko2 glicko2;
+
+    public RatingPeriodService(MatchRepository matchRepository, PlayerHistoryRepository playerHistoryRepository,
+                               @Value("${rating.glicko2.tau:0.5}") double tau) {
+        this.matchRepository = matchRepository;
+        this.playerHistoryRepository = playerHistoryRepository;
+        this.glicko2 = new Glicko2(tau);
+    }
+
+    /**
+     * Rates the round as one period. The changes are saved as a result history of the round, so rolling
+     * back the next round reverts them together with the results. Does nothing for Elo tournaments.
+     *
+     * @throws RoundNotFinishedException if a board of the round has no result: a result entered after the period
+     *                                   is closed would never be rated
+     */
+    @Transactional
+    public void closeRound(Tournament tournament, int round) {
+        if (tournament.getRatingSystem() != Tournament.RatingSystem.GLICKO2 || round < 1) {
+            return;
+        }
+        List<Player> players = tournament.getPlayers();
+        int size = players.size();
+        Map<Integer, Integer> indexById = new HashMap<>();
+        double[] rating = new double[size];
+        double[] deviation = new double[size];
+        double[] volatility = new double[size];
+        for (int i = 0; i < size; i++) {
+            Player player = players.get(i);
+            indexById.put(player.getId(), i);
+            rating[i] = player.getRating();
+            deviation[i] = player.getRatingDeviation();
+            volatility[i] = player.getVolatility();
+        }
+
+        List<Match> matches = matchRepository.findAllByTournamentIdAndRoundNumber(tournament.getId(), round);
+        long openBoards = matches.stream().filter(match -> match.getResult() == null).count();
+        if (openBoards > 0) {
+            throw new RoundNotFinishedException(String.format("Tournament id: %s, round %s has %s boards without result",
+                    tournament.getId(), round, openBoards));
+        }
+        int[] white = new int[matches.size()];
+        int[] black = new int[matches.size()];
+        double[] result = new double[matches.size()];
+        int games = 0;
+        for (Match match : matches) {
+            Integer whiteIndex = indexById.get(match.getWhitePlayer().getId());
+            Integer blackIndex = indexById.get(match.getBlackPlayer().getId());
+            if (whiteIndex == null || blackIndex == null) {
+                continue;
+            }
+            white[games] = whiteIndex;
+            black[games] = blackIndex;
+            result[games] = match.getResult();
+            games++;
+        }
+
+        glicko2.ratePeriod(rating, deviation, volatility, white, black, result, games);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PlayerHistory> histories = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Player player = players.get(i);
+            PlayerHistory history = new PlayerHistory(tournament.getId(), player.getId(), now, round);
+            history.setRatingChanges(rating[i] - player.getRating());
+            history.setRatingDeviationChanges(deviation[i] - player.getRatingDeviation());
+            history.setVolatilityChanges(volatility[i] - player.getVolatility());
+            histories.add(history);
+
+            player.setRating(rating[i]);
+            player.setRatingDeviation(deviation[i]);
+            player.setVolatility(volatility[i]);
+        }
+        playerHistoryRepository.saveAll(histories);
+    }
+}
@@ -0,0 +1,189 @@
+package org.chessunion.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.chessunion.dto.RatingChangeDto;
+import org.chessunion.dto.RatingRecomputeReportDto;
+import org.chessunion.util.rating.RatingReplay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.util.*;
+
+/**
+ * Rebuilds every rating from the games in the database: all rated games are streamed in chronological
+ * order into a {@link RatingReplay}, replayed in memory and written back to users, players and
+ * player histories with batched updates. Forfeits and unrated imported games ({@code matches.rated = false})
+ * are skipped. Users without games keep their rating. Only Elo games
+ * change ratings: Glicko-2 tournaments are rated by periods into {@code users.glicko_rating}, their games
+ * only count for the game counters and the K-factor.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class RatingRecomputeService {
+    private static final int FETCH_SIZE = 5000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int REPORTED_CHANGES = 50;
+
+    private static final String GAMES = """
+            SELECT m.tournament_id, m.round_number, m.result, wp.id, wp.user_id, bp.id, bp.user_id, t.rating_system = 'ELO'
+            FROM matches m
+                JOIN players wp ON wp.id = m.white_player_id
+                JOIN players bp ON bp.id = m.black_player_id
+                JOIN tournaments t ON t.id = m.tournament_id
+            WHERE m.result IS NOT NULL AND m.rated
+            ORDER BY m.created_at, m.tournament_id, m.round_number, m.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheEvictionService cacheEvictionService;
+
+    @Value("${rating.initial:1000}")
+    private double initialRating;
+
+    @Value("${rating.recompute.parallel-threshold:4096}")
+    private int parallelThreshold;
+
+    /**
+     * Runs on one snapshot of the database; a result entered meanwhile makes the updates fail
+     * instead of being overwritten.
+     *
+     * @param dryRun only report the differences
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public RatingRecomputeReportDto recompute(boolean dryRun) {
+        long startedAt = System.nanoTime();
+        int maxUserId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Integer.class);
+        int capacity = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM matches m WHERE m.result IS NOT NULL AND m.rated", Integer.class);
+
+        double[] before = new double[maxUserId + 1];
+        stream("SELECT id, rating FROM users", rs -> before[rs.getInt(1)] = rs.getDouble(2));
+
+        RatingReplay replay = new RatingReplay(maxUserId, capacity, initialRating);
+        int[] tournaments = new int[capacity];
+        int[] rounds = new int[capacity];
+        int[] whitePlayers = new int[capacity];
+        int[] blackPlayers = new int[capacity];
+        stream(GAMES, rs -> {
+            int game = replay.addGame(rs.getInt(5), rs.getInt(7), rs.getDouble(3), rs.getBoolean(8));
+            tournaments[game] = rs.getInt(1);
+            rounds[game] = rs.getInt(2);
+            whitePlayers[game] = rs.getInt(4);
+            blackPlayers[game] = rs.getInt(6);
+        });
+        int waves = replay.run(parallelThreshold);
+
+        List<RatingChangeDto> changes = new ArrayList<>();
+        int users = 0;
+        for (int userId = 1; userId <= maxUserId; userId++) {
+            if (!replay.played(userId)) {
+                continue;
+            }
+            users++;
+            if (replay.ratedUser(userId) && replay.rating(userId) != before[userId]) {
+                changes.add(new RatingChangeDto(userId, before[userId], replay.rating(userId)));
+            }
+        }
+        changes.sort(Comparator.comparingDouble((RatingChangeDto change) -> Math.abs(change.getAfter() - change.getBefore())).reversed());
+        double maxChange = changes.isEmpty() ? 0 : Math.abs(changes.getFirst().getAfter() - changes.getFirst().getBefore());
+
+        if (!dryRun) {
+            writeUsers(replay, before);
+            writePlayers(replay, whitePlayers, blackPlayers);
+            writeHistories(replay, tournaments, rounds, whitePlayers, blackPlayers);
+            cacheEvictionService.evictRatings();
+        }
+
+        long millis = Math.max((System.nanoTime() - startedAt) / 1_000_000, 1);
+        double gamesPerSecond = replay.games() * 1000.0 / millis;
+        log.info("Rating recompute{}: {} games, {} users ({} changed), {} waves in {} ms ({} games/s)",
+                dryRun ? " (dry run)" : "", replay.games(), users, changes.size(), waves, millis, Math.round(gamesPerSecond));
+        return new RatingRecomputeReportDto(dryRun, replay.games(), users, changes.size(), maxChange, waves, millis,
+                gamesPerSecond, List.copyOf(changes.subList(0, Math.min(REPORTED_CHANGES, changes.size()))));
+    }
+
+    // у пользователя только с партиями Glicko-2 рейтинг Эло не меняется, обновляются счётчики
+    private void writeUsers(RatingReplay replay, double[] before) {
+        List<Integer> userIds = new ArrayList<>();
+        for (int userId = 1; userId <= replay.maxUserId(); userId++) {
+            if (replay.played(userId)) {
+                userIds.add(userId);
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE users SET rating = ?, amount_of_matches = ?, amount_of_wins = ?, amount_of_draws = ?, amount_of_losses = ?
+                WHERE id = ?
+                """, userIds, BATCH_SIZE, (ps, userId) -> {
+            ps.setDouble(1, replay.ratedUser(userId) ? replay.rating(userId) : before[userId]);
+            ps.setInt(2, replay.matches(userId));
+            ps.setInt(3, replay.wins(userId));
+            ps.setInt(4, replay.draws(userId));
+            ps.setInt(5, replay.losses(userId));
+            ps.setInt(6, userId);
+        });
+    }
+
+    // игрок турнира получает состояние пользователя после своей последней партии в турнире;
+    // игроки турниров Glicko-2 хранят рейтинг Glicko-2 и не трогаются
+    private void writePlayers(RatingReplay replay, int[] whitePlayers, int[] blackPlayers) {
+        Map<Integer, Integer> lastSide = new HashMap<>();
+        for (int game = 0; game < replay.games(); game++) {
+            if (!replay.ratedGame(game)) {
+                continue;
+            }
+            lastSide.put(whitePlayers[game], 2 * game + RatingReplay.WHITE);
+            lastSide.put(blackPlayers[game], 2 * game + RatingReplay.BLACK);
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE players SET rating = ?, amount_of_matches = ?, amount_of_wins = ?, amount_of_draws = ?, amount_of_losses = ?
+                WHERE id = ?
+                """, lastSide.entrySet(), BATCH_SIZE, (ps, entry) -> {
+            int game = entry.getValue() / 2;
+            int side = entry.getValue() % 2;
+            ps.setDouble(1, replay.ratingAfter(game, side));
+            ps.setInt(2, replay.matchesAfter(game, side));
+            ps.setInt(3, replay.winsAfter(game, side));
+            ps.setInt(4, replay.drawsAfter(game, side));
+            ps.setInt(5, replay.lossesAfter(game, side));
+            ps.setInt(6, entry.getKey());
+        });
+    }
+
+    // откат тура вычитает rating_changes, поэтому история должна совпадать с новыми рейтингами
+    private void writeHistories(RatingReplay replay, int[] tournaments, int[] rounds, int[] whitePlayers, int[] blackPlayers) {
+        List<Integer> sides = new ArrayList<>(replay.games() * 2);
+        for (int side = 0; side < replay.games() * 2; side++) {
+            if (replay.ratedGame(side / 2)) {
+                sides.add(side);
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+                UPDATE player_histories SET rating_changes = ?
+                WHERE tournament_id = ? AND round_of_changes = ? AND player_id = ? AND amount_of_matches_changes = 1
+                """, sides, BATCH_SIZE, (ps, side) -> {
+            int game = side / 2;
+            ps.setDouble(1, replay.ratingChange(game, side % 2));
+            ps.setInt(2, tournaments[game]);
+            ps.setInt(3, rounds[game]);
+            ps.setInt(4, side % 2 == RatingReplay.WHITE ? whitePlayers[game] : blackPlayers[game]);
+        });
+    }
+
+    private void stream(String sql, RowCallbackHandler handler) {
+        PreparedStatementCreator statement = connection -> {
+            var ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        };
+        jdbcTemplate.query(statement, handler);
+    }
+}
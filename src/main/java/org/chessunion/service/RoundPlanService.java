@@ -0,0 +1,173 @@
+package org.chessunion.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.chessunion.entity.Match;
+import org.chessunion.entity.Player;
+import org.chessunion.entity.Tournament;
+import org.chessunion.event.TournamentEvent;
+import org.chessunion.repository.MatchRepository;
+import org.chessunion.repository.PlayerRepository;
+import org.chessunion.repository.TournamentRepository;
+import org.chessunion.util.pairing.PairingPlan;
+import org.chessunion.util.pairing.PairingState;
+import org.chessunion.util.pairing.SwissPairingEngine;
+import org.chessunion.util.rating.SimpleRatingCalculator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Speculative pairing of the next Swiss round. Once at most {@code pairing.speculative.open-boards} boards
+ * of the current round are still being played, the next round is paired in the background for every
+ * combination of their results. generateNextRound then takes the plan whose snapshot equals the real one
+ * instead of running the pairing engine; if there is none, it pairs as usual.
+ */
+@Service
+public class RoundPlanService {
+    private static final double[] RESULTS = {1.0, 0.5, 0.0};
+
+    private final TournamentRepository tournamentRepository;
+    private final PlayerRepository playerRepository;
+    private final MatchRepository matchRepository;
+    private final PlayerService playerService;
+    private final SimpleRatingCalculator simpleRatingCalculator;
+    private final SwissPairingEngine swissPairingEngine;
+    private final MeterRegistry meterRegistry;
+    private final int maxOpenBoards;
+
+    // один поток: жеребьёвка — работа процессора, очередь короткая, старые задачи вытесняются новыми
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), new CustomizableThreadFactory("round-plan-"),
+            new ThreadPoolExecutor.DiscardOldestPolicy());
+    private final Map<Integer, Plans> plans = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> tickets = new ConcurrentHashMap<>();
+
+    public RoundPlanService(TournamentRepository tournamentRepository, PlayerRepository playerRepository,
+                            MatchRepository matchRepository, PlayerService playerService,
+                            SimpleRatingCalculator simpleRatingCalculator, SwissPairingEngine swissPairingEngine,
+                            MeterRegistry meterRegistry,
+                            @Value("${pairing.speculative.open-boards:2}") int maxOpenBoards) {
+        this.tournamentRepository = tournamentRepository;
+        this.playerRepository = playerRepository;
+        this.matchRepository = matchRepository;
+        this.playerService = playerService;
+        this.simpleRatingCalculator = simpleRatingCalculator;
+        this.swissPairingEngine = swissPairingEngine;
+        this.meterRegistry = meterRegistry;
+        this.maxOpenBoards = maxOpenBoards;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTournamentEvent(TournamentEvent event) {
+        if (event.type() == TournamentEvent.Type.RESULT_ENTERED) {
+            long ticket = tickets.merge(event.tournamentId(), 1L, Long::sum);
+            executor.execute(() -> prepare(event.tournamentId(), ticket));
+        } else {
+            invalidate(event.tournamentId());
+        }
+    }
+
+    public void invalidate(int tournamentId) {
+        tickets.merge(tournamentId, 1L, Long::sum);
+        plans.remove(tournamentId);
+    }
+
+    /**
+     * Plan prepared for exactly this snapshot, if any. Prepared plans of the tournament are dropped.
+     */
+    public Optional<PairingPlan> takePlan(int tournamentId, PairingState state) {
+        Plans prepared = plans.remove(tournamentId);
+        PairingPlan plan = null;
+        if (prepared != null) {
+            for (Scenario scenario : prepared.scenarios()) {
+                if (scenario.hash() == state.contentHash() && scenario.state().sameAs(state)) {
+                    plan = scenario.plan();
+                    break;
+                }
+            }
+        }
+        meterRegistry.counter("pairing.speculative", "outcome", plan == null ? "miss" : "hit").increment();
+        return Optional.ofNullable(plan);
+    }
+
+    private void prepare(int tournamentId, long ticket) {
+        Tournament tournament = tournamentRepository.findById(tournamentId).orElse(null);
+        if (tournament == null
+                || tournament.getSystemType() != Tournament.SystemType.SWISS
+                // у Glicko-2 рейтинги меняются при закрытии тура, снимок заранее не угадать
+                || tournament.getRatingSystem() != Tournament.RatingSystem.ELO
+                || tournament.getStage() != Tournament.Stage.PLAYING
+                || tournament.getCurrentRound() >= tournament.getAmountOfRounds()) {
+            return;
+        }
+        List<Match> openBoards = matchRepository.findAllByTournamentIdAndRoundNumber(tournamentId, tournament.getCurrentRound())
+                .stream()
+                .filter(match -> match.getResult() == null)
+                .toList();
+        if (openBoards.size() > maxOpenBoards) {
+            return;
+        }
+
+        Map<Integer, Player> players = new LinkedHashMap<>();
+        for (Player player : playerRepository.findAllByTournament_Id(tournamentId)) {
+            players.put(player.getId(), player);
+        }
+        for (Match board : openBoards) {
+            if (!players.containsKey(board.getWhitePlayer().getId()) || !players.containsKey(board.getBlackPlayer().getId())) {
+                return;
+            }
+        }
+        List<Object[]> games = matchRepository.findPlayerIdPairsByTournamentId(tournamentId);
+
+        int scenarioCount = (int) Math.pow(RESULTS.length, openBoards.size());
+        List<Scenario> scenarios = new ArrayList<>(scenarioCount);
+        for (int scenario = 0; scenario < scenarioCount; scenario++) {
+            if (!Objects.equals(tickets.get(tournamentId), ticket)) {
+                return;
+            }
+            Map<Integer, Player> field = new LinkedHashMap<>(players);
+            int code = scenario;
+            for (Match board : openBoards) {
+                double result = RESULTS[code % RESULTS.length];
+                code /= RESULTS.length;
+                applyResult(field, board, result);
+            }
+            PairingState state = playerService.pairingSnapshot(field.values(), games).build();
+            swissPairingEngine.pair(state)
+                    .ifPresent(plan -> scenarios.add(new Scenario(state.contentHash(), state, plan)));
+        }
+
+        // результат устаревшей задачи не должен затереть более свежие планы
+        plans.compute(tournamentId, (id, current) ->
+                Objects.equals(tickets.get(tournamentId), ticket) ? new Plans(scenarios) : current);
+    }
+
+    // то же, что делает ввод результата: рейтинг по калькулятору и очки, на копиях игроков
+    private void applyResult(Map<Integer, Player> field, Match board, double result) {
+        Match match = new Match();
+        match.setWhitePlayer(field.get(board.getWhitePlayer().getId()));
+        match.setBlackPlayer(field.get(board.getBlackPlayer().getId()));
+        match.setResult(result);
+        simpleRatingCalculator.calculate(match);
+        match.getWhitePlayer().addScore(result);
+        match.getBlackPlayer().addScore(Math.abs(result - 1));
+        field.put(match.getWhitePlayer().getId(), match.getWhitePlayer());
+        field.put(match.getBlackPlayer().getId(), match.getBlackPlayer());
+    }
+
+    private record Plans(List<Scenario> scenarios) {
+    }
+
+    private record Scenario(long hash, PairingState state, PairingPlan plan) {
+    }
+}
@@ -0,0 +1,272 @@
+package org.chessunion.service;
+
+import lombok.RequiredArgsConstructor;
+import org.chessunion.config.CacheConfig;
+import org.chessunion.dto.PlayerDto;
+import org.chessunion.dto.StandingChangeDto;
+import org.chessunion.entity.Match;
+import org.chessunion.entity.Player;
+import org.chessunion.entity.Tournament;
+import org.chessunion.entity.TournamentStanding;
+import org.chessunion.repository.MatchRepository;
+import org.chessunion.repository.PlayerHistoryRepository;
+import org.chessunion.repository.PlayerRepository;
+import org.chessunion.repository.TournamentRepository;
+import org.chessunion.repository.TournamentStandingRepository;
+import org.chessunion.util.standings.TiebreakCalculator;
+import org.chessunion.util.standings.Tiebreaks;
+import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class StandingsService {
+    private static final Comparator<TournamentStanding> STANDINGS_ORDER = Comparator
+            .comparingDouble(TournamentStanding::getScore)
+            .thenComparingDouble(TournamentStanding::getBuchholz)
+            .thenComparingDouble(TournamentStanding::getBuchholzCut1)
+            .thenComparingDouble(TournamentStanding::getSonnebornBerger)
+            .thenComparingDouble(TournamentStanding::getProgressiveScore)
+            .reversed()
+            .thenComparingInt(TournamentStanding::getPlayerId);
+
+    private final PlayerRepository playerRepository;
+    private final MatchRepository matchRepository;
+    private final PlayerHistoryRepository playerHistoryRepository;
+    private final TournamentStandingRepository tournamentStandingRepository;
+    private final TournamentRepository tournamentRepository;
+    private final PlayerService playerService;
+    private final ModelMapper modelMapper;
+
+    /**
+     * Standings ordered by place. Served from tournament_standings; if the table is out of sync
+     * with the field (e.g. players registered after the last round), the table is computed on the fly.
+     */
+    @Cacheable(cacheNames = CacheConfig.STANDINGS, key = "#tournament.id")
+    public List<PlayerDto> getStandings(Tournament tournament) {
+        List<TournamentStanding> standings = tournamentStandingRepository.findAllByTournamentIdOrderByPlace(tournament.getId());
+        if (standings.size() != playerRepository.countByTournament_Id(tournament.getId())) {
+            standings = calculateStandings(tournament);
+        }
+        return standings.stream()
+                .map(this::standingToPlayerDto)
+                .toList();
+    }
+
+    /**
+     * Recomputes the whole table. Used when the field changes as a whole: a new round or a rollback.
+     *
+     * @return rows that changed
+     */
+    @Transactional
+    public List<StandingChangeDto> rebuild(Tournament tournament) {
+        lockStandings(tournament);
+        Map<Integer, TournamentStanding> stored = new HashMap<>();
+        Map<Integer, StandingChangeDto> before = new HashMap<>();
+        for (TournamentStanding standing : tournamentStandingRepository.findAllByTournamentId(tournament.getId())) {
+            stored.put(standing.getPlayerId(), standing);
+            before.put(standing.getPlayerId(), toChange(standing));
+        }
+
+        List<TournamentStanding> calculatedStandings = calculateStandings(tournament);
+        List<TournamentStanding> toSave = new ArrayList<>();
+        for (TournamentStanding calculated : calculatedStandings) {
+            TournamentStanding standing = stored.remove(calculated.getPlayerId());
+            if (standing == null) {
+                toSave.add(calculated);
+                continue;
+            }
+            standing.setPlace(calculated.getPlace());
+            standing.setScore(calculated.getScore());
+            standing.setBuchholz(calculated.getBuchholz());
+            standing.setBuchholzCut1(calculated.getBuchholzCut1());
+            standing.setSonnebornBerger(calculated.getSonnebornBerger());
+            standing.setProgressiveScore(calculated.getProgressiveScore());
+        }
+        tournamentStandingRepository.saveAll(toSave);
+        tournamentStandingRepository.deleteAll(stored.values());
+        return changes(before, calculatedStandings);
+    }
+
+    /**
+     * Applies a freshly entered result. Only the two players and their opponents get new numbers:
+     * the score change of a player moves the Buchholz (and Sonneborn-Berger, for finished games) of
+     * everyone who met them. Places of the whole table are then re-sorted in memory.
+     *
+     * @return rows that changed
+     */
+    @Transactional
+    public List<StandingChangeDto> applyResult(Match match) {
+        Tournament tournament = match.getTournament();
+        lockStandings(tournament);
+        Map<Integer, TournamentStanding> standings = new HashMap<>();
+        Map<Integer, StandingChangeDto> before = new HashMap<>();
+        for (TournamentStanding standing : tournamentStandingRepository.findAllByTournamentId(tournament.getId())) {
+            standings.put(standing.getPlayerId(), standing);
+            before.put(standing.getPlayerId(), toChange(standing));
+        }
+        int whiteId = match.getWhitePlayer().getId();
+        int blackId = match.getBlackPlayer().getId();
+        TournamentStanding white = standings.get(whiteId);
+        TournamentStanding black = standings.get(blackId);
+        if (white == null || black == null) {
+            return rebuild(tournament);
+        }
+
+        double whitePoints = match.getResult();
+        double blackPoints = 1 - whitePoints;
+        int roundsCounted = Math.max(tournament.getCurrentRound() - match.getRoundNumber() + 1, 0);
+
+        // новая сыгранная партия добавляется в Бергер по старому счёту соперника
+        white.setSonnebornBerger(white.getSonnebornBerger() + whitePoints * black.getScore());
+        black.setSonnebornBerger(black.getSonnebornBerger() + blackPoints * white.getScore());
+
+        Map<Integer, Object[]> games = new HashMap<>();
+        for (Object[] game : matchRepository.findGameResultsByPlayerIds(List.of(whiteId, blackId))) {
+            games.put((Integer) game[0], game);
+        }
+        Set<Integer> affected = new HashSet<>();
+        for (Object[] game : games.values()) {
+            Double result = match.getId().equals(game[0]) ? match.getResult() : (Double) game[4];
+            spreadScoreChange(standings, game, whiteId, whitePoints, result, affected);
+            spreadScoreChange(standings, game, blackId, blackPoints, result, affected);
+        }
+
+        white.setScore(white.getScore() + whitePoints);
+        black.setScore(black.getScore() + blackPoints);
+        white.setProgressiveScore(white.getProgressiveScore() + whitePoints * roundsCounted);
+        black.setProgressiveScore(black.getProgressiveScore() + blackPoints * roundsCounted);
+        affected.add(whiteId);
+        affected.add(blackId);
+
+        // Cut-1 требует минимума по соперникам, поэтому для затронутых пересчитывается по их партиям
+        Map<Integer, Double> weakestOpponent = new HashMap<>();
+        for (Object[] game : matchRepository.findGameResultsByPlayerIds(affected)) {
+            Integer whitePlayerId = (Integer) game[1];
+            Integer blackPlayerId = (Integer) game[2];
+            TournamentStanding whiteStanding = standings.get(whitePlayerId);
+            TournamentStanding blackStanding = standings.get(blackPlayerId);
+            if (whiteStanding == null || blackStanding == null) {
+                continue;
+            }
+            weakestOpponent.merge(whitePlayerId, blackStanding.getScore(), Math::min);
+            weakestOpponent.merge(blackPlayerId, whiteStanding.getScore(), Math::min);
+        }
+        for (Integer playerId : affected) {
+            TournamentStanding standing = standings.get(playerId);
+            Double weakest = weakestOpponent.get(playerId);
+            standing.setBuchholzCut1(weakest == null ? 0 : standing.getBuchholz() - weakest);
+        }
+
+        assignPlaces(new ArrayList<>(standings.values()));
+        return changes(before, standings.values());
+    }
+
+    // таблица турнира читается и переписывается целиком: результаты на разных досках затрагивают общие строки
+    // (Бухгольц соперников, места), поэтому пересчёты одного турнира идут по очереди под блокировкой строки турнира
+    private void lockStandings(Tournament tournament) {
+        tournamentRepository.findByIdForUpdate(tournament.getId());
+    }
+
+    private static List<StandingChangeDto> changes(Map<Integer, StandingChangeDto> before, Collection<TournamentStanding> after) {
+        List<StandingChangeDto> changes = new ArrayList<>();
+        for (TournamentStanding standing : after) {
+            StandingChangeDto change = toChange(standing);
+            if (!change.equals(before.get(standing.getPlayerId()))) {
+                changes.add(change);
+            }
+        }
+        changes.sort(Comparator.comparingInt(StandingChangeDto::getPlace));
+        return changes;
+    }
+
+    private static StandingChangeDto toChange(TournamentStanding standing) {
+        return new StandingChangeDto(standing.getPlayerId(), standing.getPlace(), standing.getScore(), standing.getBuchholz(),
+                standing.getBuchholzCut1(), standing.getSonnebornBerger(), standing.getProgressiveScore());
+    }
+
+    private static void spreadScoreChange(Map<Integer, TournamentStanding> standings, Object[] game, int playerId,
+                                          double points, Double result, Set<Integer> affected) {
+        Integer whitePlayerId = (Integer) game[1];
+        Integer blackPlayerId = (Integer) game[2];
+        Integer opponentId;
+        Double opponentPoints;
+        if (whitePlayerId == playerId) {
+            opponentId = blackPlayerId;
+            opponentPoints = result == null ? null : 1 - result;
+        } else if (blackPlayerId == playerId) {
+            opponentId = whitePlayerId;
+            opponentPoints = result;
+        } else {
+            return;
+        }
+        TournamentStanding opponent = standings.get(opponentId);
+        if (opponent == null) {
+            return;
+        }
+        opponent.setBuchholz(opponent.getBuchholz() + points);
+        if (opponentPoints != null) {
+            opponent.setSonnebornBerger(opponent.getSonnebornBerger() + opponentPoints * points);
+        }
+        affected.add(opponentId);
+    }
+
+    private List<TournamentStanding> calculateStandings(Tournament tournament) {
+        List<Player> players = playerRepository.findAllByTournament_Id(tournament.getId());
+
+        int[] ids = new int[players.size()];
+        double[] scores = new double[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            ids[i] = players.get(i).getId();
+            scores[i] = players.get(i).getScore();
+        }
+
+        TiebreakCalculator calculator = new TiebreakCalculator(ids, scores, tournament.getCurrentRound());
+        for (Object[] game : matchRepository.findGameResultsByTournamentId(tournament.getId())) {
+            calculator.game((Integer) game[0], (Integer) game[1], (Integer) game[2], (Double) game[3]);
+        }
+        for (Object[] bye : playerHistoryRepository.findByeRoundsByTournamentId(tournament.getId())) {
+            calculator.bye((Integer) bye[0], (Integer) bye[1]);
+        }
+        Tiebreaks[] tiebreaks = calculator.calculate();
+
+        List<TournamentStanding> standings = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            TournamentStanding standing = new TournamentStanding(players.get(i), tournament.getId());
+            standing.setScore(scores[i]);
+            standing.setBuchholz(tiebreaks[i].buchholz());
+            standing.setBuchholzCut1(tiebreaks[i].buchholzCut1());
+            standing.setSonnebornBerger(tiebreaks[i].sonnebornBerger());
+            standing.setProgressiveScore(tiebreaks[i].progressiveScore());
+            standings.add(standing);
+        }
+        assignPlaces(standings);
+        return standings;
+    }
+
+    private static void assignPlaces(List<TournamentStanding> standings) {
+        standings.sort(STANDINGS_ORDER);
+        for (int i = 0; i < standings.size(); i++) {
+            standings.get(i).setPlace(i + 1);
+        }
+    }
+
+    private PlayerDto standingToPlayerDto(TournamentStanding standing) {
+        Player player = standing.getPlayer();
+        PlayerDto playerDto = modelMapper.map(player, PlayerDto.class);
+        playerDto.setUserId(player.getUser().getId());
+        playerDto.setFullName(playerService.getFullName(player));
+        playerDto.setPlace(String.valueOf(standing.getPlace()));
+        playerDto.setScore(standing.getScore());
+        playerDto.setSecondScore(standing.getBuchholz());
+        playerDto.setBuchholzCut1(standing.getBuchholzCut1());
+        playerDto.setSonnebornBerger(standing.getSonnebornBerger());
+        playerDto.setProgressiveScore(standing.getProgressiveScore());
+        return playerDto;
+    }
+}
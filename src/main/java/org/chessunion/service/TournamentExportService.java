@@ -0,0 +1,170 @@
+package org.chessunion.service;
+
+import lombok.RequiredArgsConstructor;
+import org.chessunion.entity.Tournament;
+import org.chessunion.exception.TournamentNotFoundException;
+import org.chessunion.repository.PlayerRepository;
+import org.chessunion.repository.TournamentRepository;
+import org.chessunion.util.export.PgnWriter;
+import org.chessunion.util.export.TrfWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Streaming export of a tournament in FIDE TRF-16 and as a PGN game list. Rows are read through a forward-only
+ * cursor and written to the output as they arrive, so memory does not grow with the size of the tournament.
+ * Has to run inside a transaction: PostgreSQL honours the fetch size only with autocommit off. The output should
+ * not be a client socket: the connection is held until the last row is written. Each query is limited by
+ * {@code export.query-timeout}.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TournamentExportService {
+    private static final int FETCH_SIZE = 500;
+
+    // стартовый номер — порядок регистрации; bye из истории игрока идут строкой без соперника
+    private static final String TRF_ROWS = """
+            WITH ranks AS (
+                SELECT id, row_number() OVER (ORDER BY id) AS start_rank FROM players WHERE tournament_id = ?
+            ), games AS (
+                SELECT white_player_id AS player_id, black_player_id AS opponent_id, round_number, 'w' AS colour,
+                       result AS points
+                FROM matches WHERE tournament_id = ?
+                UNION ALL
+                SELECT black_player_id, white_player_id, round_number, 'b', 1 - result
+                FROM matches WHERE tournament_id = ?
+                UNION ALL
+                SELECT player_id, NULL, round_of_changes, '-', NULL
+                FROM player_histories WHERE tournament_id = ? AND had_bye_changes
+            )
+            SELECT r.start_rank, u.first_name, u.last_name, p.rating, p.score, s.place,
+                   g.round_number, g.colour, g.points, o.start_rank AS opponent_rank
+            FROM ranks r
+                JOIN players p ON p.id = r.id
+                JOIN users u ON u.id = p.user_id
+                LEFT JOIN tournament_standings s ON s.player_id = p.id
+                LEFT JOIN games g ON g.player_id = p.id
+                LEFT JOIN ranks o ON o.id = g.opponent_id
+            ORDER BY r.start_rank, g.round_number
+            """;
+
+    private static final String PGN_ROWS = """
+            SELECT m.round_number, m.result, wu.first_name, wu.last_name, bu.first_name, bu.last_name
+            FROM matches m
+                JOIN players wp ON wp.id = m.white_player_id
+                JOIN users wu ON wu.id = wp.user_id
+                JOIN players bp ON bp.id = m.black_player_id
+                JOIN users bu ON bu.id = bp.user_id
+            WHERE m.tournament_id = ?
+            ORDER BY m.round_number, m.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TournamentRepository tournamentRepository;
+    private final PlayerRepository playerRepository;
+    private final TransliterationService transliterationService;
+
+    @Value("${export.query-timeout:30s}")
+    private Duration queryTimeout;
+
+    public Tournament getTournament(int id) {
+        return tournamentRepository.findById(id).orElseThrow(() -> new TournamentNotFoundException(id));
+    }
+
+    public void writeTrf(Tournament tournament, OutputStream outputStream) throws IOException {
+        int id = tournament.getId();
+        int rounds = tournament.getAmountOfRounds() == null ? tournament.getCurrentRound() : tournament.getAmountOfRounds();
+        Writer out = writer(outputStream);
+        TrfWriter trf = new TrfWriter(out, rounds);
+        trf.header(transliterationService.transliterate(tournament.getName()),
+                tournament.getAddress() == null ? null : transliterationService.transliterate(tournament.getAddress()),
+                startDate(tournament), (int) playerRepository.countByTournament_Id(id));
+
+        int[] currentRank = {0};
+        stream(TRF_ROWS, rs -> {
+            int startRank = rs.getInt("start_rank");
+            if (startRank != currentRank[0]) {
+                if (currentRank[0] != 0) {
+                    trf.endPlayer(tournament.getCurrentRound());
+                }
+                currentRank[0] = startRank;
+                trf.startPlayer(startRank,
+                        transliterationService.transliterate(rs.getString("last_name") + ", " + rs.getString("first_name")),
+                        (int) Math.round(rs.getDouble("rating")), rs.getDouble("score"), rs.getInt("place"));
+            }
+            Integer round = rs.getObject("round_number", Integer.class);
+            if (round == null) {
+                return;
+            }
+            String colour = rs.getString("colour");
+            if ("-".equals(colour)) {
+                trf.bye(round);
+            } else {
+                Double points = rs.getObject("points", Double.class);
+                trf.game(round, rs.getInt("opponent_rank"), colour.charAt(0), points);
+            }
+        }, id, id, id, id);
+        if (currentRank[0] != 0) {
+            trf.endPlayer(tournament.getCurrentRound());
+        }
+        out.flush();
+    }
+
+    public void writePgn(Tournament tournament, OutputStream outputStream) throws IOException {
+        Writer out = writer(outputStream);
+        PgnWriter pgn = new PgnWriter(out, tournament.getName(), tournament.getAddress(), startDate(tournament));
+        stream(PGN_ROWS, rs -> {
+            Double result = rs.getObject(2, Double.class);
+            pgn.game(rs.getInt(1), rs.getString(4) + ", " + rs.getString(3), rs.getString(6) + ", " + rs.getString(5), result);
+        }, tournament.getId());
+        out.flush();
+    }
+
+    private void stream(String sql, RowWriter rowWriter, Object... args) throws IOException {
+        PreparedStatementCreator statement = connection -> {
+            var ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setQueryTimeout((int) queryTimeout.toSeconds());
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        };
+        try {
+            jdbcTemplate.query(statement, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // клиент закрыл соединение — дальше читать курсор незачем
+            throw e.getCause();
+        }
+    }
+
+    private static Writer writer(OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    private static LocalDate startDate(Tournament tournament) {
+        return tournament.getStartDateTime() == null ? null : tournament.getStartDateTime().toLocalDate();
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,453 @@
+package org.chessunion.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.chessunion.dto.TournamentImportReportDto;
+import org.chessunion.entity.*;
+import org.chessunion.repository.RoleRepository;
+import org.chessunion.repository.TournamentRepository;
+import org.chessunion.repository.UserRepository;
+import org.chessunion.util.export.TrfReader;
+import org.chessunion.util.export.TrfTournament;
+import org.chessunion.util.rating.SimpleRatingCalculator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Import of finished tournaments from TRF-16 files. Users are matched by first and last name with one query
+ * per thousand names, players, matches and histories go in as JDBC batches, and ratings are replayed through
+ * the rating calculator tournament by tournament in the order of their start dates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TournamentImportService {
+    private static final int BATCH_SIZE = 500;
+    private static final int NAME_CHUNK = 1000;
+    // allocationSize последовательностей players_seq, matches_seq, player_histories_seq (V23)
+    private static final int ID_BLOCK = 50;
+    private static final String DEFAULT_PASSWORD = "12345678";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TournamentRepository tournamentRepository;
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final TransliterationService transliterationService;
+    private final SimpleRatingCalculator simpleRatingCalculator;
+    private final PlayerHistoryService playerHistoryService;
+    private final StandingsService standingsService;
+    private final CacheEvictionService cacheEvictionService;
+
+    /**
+     * Imports all files in one transaction: a broken file rolls back the whole import.
+     */
+    @Transactional
+    public TournamentImportReportDto importFiles(List<MultipartFile> files) {
+        long startedAt = System.nanoTime();
+        List<TrfTournament> tournaments = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+                tournaments.add(TrfReader.read(reader, file.getOriginalFilename()));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to read " + file.getOriginalFilename(), e);
+            }
+        }
+        // рейтинг переигрывается в хронологическом порядке турниров
+        tournaments.sort(Comparator.comparing(TrfTournament::startDate, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<User> createdUsers = new ArrayList<>();
+        Map<String, User> users = resolveUsers(tournaments, createdUsers);
+
+        int players = 0;
+        int games = 0;
+        for (TrfTournament tournament : tournaments) {
+            games += importTournament(tournament, users);
+            players += tournament.players().size();
+        }
+
+        for (User user : users.values()) {
+            cacheEvictionService.evictUser(user.getId(), user.getUsername());
+        }
+        cacheEvictionService.evictTopList();
+
+        long millis = Math.max((System.nanoTime() - startedAt) / 1_000_000, 1);
+        double gamesPerSecond = games * 1000.0 / millis;
+        log.info("TRF import: {} tournaments, {} players, {} games in {} ms ({} games/s)",
+                tournaments.size(), players, games, millis, Math.round(gamesPerSecond));
+        return new TournamentImportReportDto(tournaments.size(), players, games, createdUsers.size(), millis, gamesPerSecond);
+    }
+
+    private Map<String, User> resolveUsers(List<TrfTournament> tournaments, List<User> createdUsers) {
+        Map<String, TrfTournament.TrfPlayer> names = new LinkedHashMap<>();
+        Set<String> lastNames = new LinkedHashSet<>();
+        for (TrfTournament tournament : tournaments) {
+            for (TrfTournament.TrfPlayer player : tournament.players()) {
+                names.putIfAbsent(nameKey(player.firstName(), player.lastName()), player);
+                lastNames.add(player.lastName());
+            }
+        }
+
+        Map<String, List<User>> candidates = new HashMap<>();
+        List<String> lastNameList = new ArrayList<>(lastNames);
+        for (int from = 0; from < lastNameList.size(); from += NAME_CHUNK) {
+            List<String> chunk = lastNameList.subList(from, Math.min(from + NAME_CHUNK, lastNameList.size()));
+            for (User user : userRepository.findAllByLastNameIn(chunk)) {
+                candidates.computeIfAbsent(nameKey(user.getFirstName(), user.getLastName()), key -> new ArrayList<>()).add(user);
+            }
+        }
+
+        Map<String, User> users = new HashMap<>();
+        for (Map.Entry<String, TrfTournament.TrfPlayer> name : names.entrySet()) {
+            List<User> found = candidates.getOrDefault(name.getKey(), List.of());
+            if (found.size() > 1) {
+                throw new IllegalArgumentException("There are 2 or more users with this fullName: "
+                        + name.getValue().firstName() + " " + name.getValue().lastName());
+            }
+            User user = found.isEmpty() ? newUser(name.getValue()) : found.getFirst();
+            if (found.isEmpty()) {
+                createdUsers.add(user);
+            }
+            users.put(name.getKey(), user);
+        }
+
+        assignUsernames(createdUsers);
+        userRepository.saveAll(createdUsers);
+        return users;
+    }
+
+    // как registerCustomUser: логин из транслитерации имени, пароль по умолчанию
+    private User newUser(TrfTournament.TrfPlayer player) {
+        User user = new User();
+        user.setFirstName(player.firstName());
+        user.setLastName(player.lastName());
+        user.setRating(1000.00);
+        user.setAmountOfMatches(0);
+        user.setAmountOfWins(0);
+        user.setAmountOfLosses(0);
+        user.setAmountOfDraws(0);
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+
+    private void assignUsernames(List<User> newUsers) {
+        if (newUsers.isEmpty()) {
+            return;
+        }
+        Set<Role> roles = Set.of(roleRepository.findById(1).orElseThrow());
+        String password = passwordEncoder.encode(DEFAULT_PASSWORD);
+        for (User user : newUsers) {
+            user.setRoles(roles);
+            user.setPassword(password);
+        }
+
+        // занятые логины получают номер: ivanivanov, ivanivanov2, ...
+        Set<String> claimed = new HashSet<>();
+        List<User> pending = newUsers;
+        for (int suffix = 1; !pending.isEmpty(); suffix++) {
+            Map<String, User> proposed = new LinkedHashMap<>();
+            List<User> retry = new ArrayList<>();
+            for (User user : pending) {
+                String base = transliterationService.transliterate(user.getFirstName() + user.getLastName());
+                String username = suffix == 1 ? base : base + suffix;
+                if (claimed.contains(username) || proposed.putIfAbsent(username, user) != null) {
+                    retry.add(user);
+                }
+            }
+            Set<String> existing = new HashSet<>();
+            List<String> usernames = new ArrayList<>(proposed.keySet());
+            for (int from = 0; from < usernames.size(); from += NAME_CHUNK) {
+                existing.addAll(userRepository.findExistingUsernames(usernames.subList(from, Math.min(from + NAME_CHUNK, usernames.size()))));
+            }
+            for (Map.Entry<String, User> entry : proposed.entrySet()) {
+                if (existing.contains(entry.getKey())) {
+                    retry.add(entry.getValue());
+                } else {
+                    entry.getValue().setUsername(entry.getKey());
+                    claimed.add(entry.getKey());
+                }
+            }
+            pending = retry;
+        }
+    }
+
+    /**
+     * @return number of games with a result
+     */
+    private int importTournament(TrfTournament trf, Map<String, User> users) {
+        LocalDateTime startedAt = trf.startDate() == null ? LocalDateTime.now() : trf.startDate().atStartOfDay();
+        int size = trf.players().size();
+
+        Tournament tournament = new Tournament();
+        tournament.setName(trf.name());
+        tournament.setAddress(trf.city());
+        tournament.setStartDateTime(startedAt);
+        tournament.setCurrentRound(trf.rounds());
+        tournament.setAmountOfRounds(trf.rounds());
+        tournament.setMinAmountOfPlayers(size);
+        tournament.setMaxAmountOfPlayers(size);
+        tournament.setStage(Tournament.Stage.FINISHED);
+        tournament.setSystemType(Tournament.SystemType.SWISS);
+        tournament.setCreatedAt(LocalDateTime.now());
+        tournamentRepository.save(tournament);
+
+        int[] playerIds = nextIds("players_seq", size);
+        Player[] players = new Player[size];
+        User[] owners = new User[size];
+        Map<Integer, Integer> indexByRank = new HashMap<>();
+        Set<User> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < size; i++) {
+            TrfTournament.TrfPlayer trfPlayer = trf.players().get(i);
+            User user = users.get(nameKey(trfPlayer.firstName(), trfPlayer.lastName()));
+            if (!seen.add(user) || indexByRank.put(trfPlayer.startRank(), i) != null) {
+                throw new IllegalArgumentException(trf.name() + ": player is repeated: " + trfPlayer.lastName() + ", " + trfPlayer.firstName());
+            }
+            Player player = new Player();
+            player.setId(playerIds[i]);
+            player.setUser(user);
+            player.setTournament(tournament);
+            player.setRating(user.getRating());
+            player.setAmountOfMatches(user.getAmountOfMatches());
+            player.setAmountOfWins(user.getAmountOfWins());
+            player.setAmountOfLosses(user.getAmountOfLosses());
+            player.setAmountOfDraws(user.getAmountOfDraws());
+            player.setCreatedAt(startedAt);
+            players[i] = player;
+            owners[i] = user;
+        }
+
+        List<Match> matches = new ArrayList<>();
+        List<PlayerHistory> histories = new ArrayList<>();
+        int games = 0;
+        for (int round = 1; round <= trf.rounds(); round++) {
+            for (int i = 0; i < size; i++) {
+                TrfTournament.TrfPlayer trfPlayer = trf.players().get(i);
+                int opponentRank = trfPlayer.opponent(round);
+                if (opponentRank == 0) {
+                    bye(players[i], trfPlayer.result(round), tournament.getId(), round, startedAt, histories);
+                    continue;
+                }
+                // каждая партия есть в строках обоих игроков, берём её из строки белых
+                if (trfPlayer.colour(round) != 'w') {
+                    continue;
+                }
+                Integer opponent = indexByRank.get(opponentRank);
+                if (opponent == null) {
+                    throw new IllegalArgumentException(trf.name() + ": unknown opponent " + opponentRank + " in round " + round);
+                }
+                Match match = game(players, i, opponent, trfPlayer.result(round), tournament, round, startedAt, histories);
+                matches.add(match);
+                if (match.getResult() != null) {
+                    games++;
+                }
+            }
+        }
+
+        int[] matchIds = nextIds("matches_seq", matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            matches.get(i).setId(matchIds[i]);
+        }
+        int[] historyIds = nextIds("player_histories_seq", histories.size());
+        for (int i = 0; i < histories.size(); i++) {
+            histories.get(i).setId(historyIds[i]);
+        }
+        insertPlayers(Arrays.asList(players));
+        insertMatches(matches);
+        insertHistories(histories);
+
+        // как saveRatings при завершении турнира; следующий турнир стартует с этих значений
+        for (int i = 0; i < size; i++) {
+            owners[i].setRating(players[i].getRating());
+            owners[i].setAmountOfMatches(players[i].getAmountOfMatches());
+            owners[i].setAmountOfWins(players[i].getAmountOfWins());
+            owners[i].setAmountOfLosses(players[i].getAmountOfLosses());
+            owners[i].setAmountOfDraws(players[i].getAmountOfDraws());
+        }
+        standingsService.rebuild(tournament);
+        return games;
+    }
+
+    private static void bye(Player player, char code, int tournamentId, int round, LocalDateTime time, List<PlayerHistory> histories) {
+        // U — bye по жеребьёвке, F — полное очко без игры, H — половина очка
+        double points = switch (code) {
+            case 'U', 'F' -> 1.0;
+            case 'H' -> 0.5;
+            default -> 0.0;
+        };
+        if (points == 0.0) {
+            return;
+        }
+        PlayerHistory history = new PlayerHistory(tournamentId, player.getId(), time, round);
+        player.addScore(points);
+        history.setScoreChanges(points);
+        if (code == 'U') {
+            player.setHadBye(true);
+            history.setHadByeChanges(true);
+        }
+        histories.add(history);
+    }
+
+    private Match game(Player[] players, int white, int black, char code, Tournament tournament, int round,
+                       LocalDateTime time, List<PlayerHistory> histories) {
+        Player whitePlayer = players[white];
+        Player blackPlayer = players[black];
+
+        // то же, что createRound при генерации тура
+        PlayerHistory whiteGenerated = new PlayerHistory(tournament.getId(), whitePlayer.getId(), time, round);
+        PlayerHistory blackGenerated = new PlayerHistory(tournament.getId(), blackPlayer.getId(), time, round);
+        whitePlayer.setColorBalance(whitePlayer.getColorBalance() - 1);
+        whitePlayer.setColorHistory(whitePlayer.getColorHistory() + 'w');
+        whiteGenerated.setColorBalanceChanges(-1);
+        whiteGenerated.setGeneratedWithRound(true);
+        blackPlayer.setColorBalance(blackPlayer.getColorBalance() + 1);
+        blackPlayer.setColorHistory(blackPlayer.getColorHistory() + 'b');
+        blackGenerated.setColorBalanceChanges(1);
+        blackGenerated.setGeneratedWithRound(true);
+        histories.add(whiteGenerated);
+        histories.add(blackGenerated);
+
+        Match match = new Match();
+        match.setTournament(tournament);
+        match.setRoundNumber(round);
+        match.setCreatedAt(time);
+        match.setWhitePlayer(whitePlayer);
+        match.setBlackPlayer(blackPlayer);
+
+        // +/- — неявка, W/D/L — партия без обсчёта: очки идут в зачёт, рейтинг не меняется
+        Double result = switch (code) {
+            case '1', '+', 'W' -> 1.0;
+            case '=', 'D' -> 0.5;
+            case '0', '-', 'L' -> 0.0;
+            default -> null;
+        };
+        if (result == null) {
+            return match;
+        }
+        match.setResult(result);
+        if (code == '1' || code == '=' || code == '0') {
+            simpleRatingCalculator.calculate(match);
+        } else {
+            match.setRated(false);
+            match.setWhitePlayer(new Player(whitePlayer));
+            match.setBlackPlayer(new Player(blackPlayer));
+        }
+        Player whiteAfter = match.getWhitePlayer();
+        Player blackAfter = match.getBlackPlayer();
+        whiteAfter.addScore(result);
+        blackAfter.addScore(Math.abs(result - 1));
+
+        PlayerHistory whiteHistory = playerHistoryService.playerDifference(whitePlayer, whiteAfter, tournament.getId(), round);
+        PlayerHistory blackHistory = playerHistoryService.playerDifference(blackPlayer, blackAfter, tournament.getId(), round);
+        whiteHistory.setTime(time);
+        blackHistory.setTime(time);
+        histories.add(whiteHistory);
+        histories.add(blackHistory);
+
+        players[white] = whiteAfter;
+        players[black] = blackAfter;
+        return match;
+    }
+
+    /**
+     * Ids the same way Hibernate's pooled optimizer takes them: a sequence value is the upper bound
+     * of a block of {@link #ID_BLOCK} ids, so imported rows never collide with ids handed out by the entities.
+     */
+    private int[] nextIds(String sequence, int count) {
+        int[] ids = new int[count];
+        int filled = 0;
+        while (filled < count) {
+            int blocks = (count - filled + ID_BLOCK - 1) / ID_BLOCK;
+            List<Long> values = jdbcTemplate.queryForList("SELECT nextval(?::regclass) FROM generate_series(1, ?)",
+                    Long.class, sequence, blocks);
+            for (long high : values) {
+                // первые значения свежей последовательности Hibernate трактует иначе, их пропускаем
+                if (high < ID_BLOCK) {
+                    continue;
+                }
+                for (long id = high - ID_BLOCK + 1; id <= high && filled < count; id++) {
+                    ids[filled++] = (int) id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void insertPlayers(List<Player> players) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO players (id, score, color_balance, user_id, rating, tournament_id, had_bye, created_at,
+                                     color_history, amount_of_matches, amount_of_wins, amount_of_losses, amount_of_draws)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, players, BATCH_SIZE, (ps, player) -> {
+            ps.setInt(1, player.getId());
+            ps.setDouble(2, player.getScore());
+            ps.setInt(3, player.getColorBalance());
+            ps.setInt(4, player.getUser().getId());
+            ps.setDouble(5, player.getRating());
+            ps.setInt(6, player.getTournament().getId());
+            ps.setBoolean(7, player.isHadBye());
+            ps.setTimestamp(8, Timestamp.valueOf(player.getCreatedAt()));
+            ps.setString(9, player.getColorHistory());
+            ps.setInt(10, player.getAmountOfMatches());
+            ps.setInt(11, player.getAmountOfWins());
+            ps.setInt(12, player.getAmountOfLosses());
+            ps.setInt(13, player.getAmountOfDraws());
+        });
+    }
+
+    private void insertMatches(List<Match> matches) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO matches (id, white_player_id, black_player_id, tournament_id, round_number, result, rated, created_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, matches, BATCH_SIZE, (ps, match) -> {
+            ps.setInt(1, match.getId());
+            ps.setInt(2, match.getWhitePlayer().getId());
+            ps.setInt(3, match.getBlackPlayer().getId());
+            ps.setInt(4, match.getTournament().getId());
+            ps.setInt(5, match.getRoundNumber());
+            ps.setObject(6, match.getResult());
+            ps.setBoolean(7, match.isRated());
+            ps.setTimestamp(8, Timestamp.valueOf(match.getCreatedAt()));
+        });
+    }
+
+    private void insertHistories(List<PlayerHistory> histories) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO player_histories (id, player_id, tournament_id, time, rating_changes, score_changes,
+                                              amount_of_matches_changes, amount_of_wins_changes, amount_of_losses_changes,
+                                              amount_of_draws_changes, color_balance_changes, had_bye_changes,
+                                              generated_with_round, round_of_changes)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, histories, BATCH_SIZE, (ps, history) -> {
+            ps.setInt(1, history.getId());
+            ps.setInt(2, history.getPlayerId());
+            ps.setInt(3, history.getTournamentId());
+            ps.setTimestamp(4, Timestamp.valueOf(history.getTime()));
+            ps.setDouble(5, history.getRatingChanges());
+            ps.setDouble(6, history.getScoreChanges());
+            ps.setInt(7, history.getAmountOfMatchesChanges());
+            ps.setInt(8, history.getAmountOfWinsChanges());
+            ps.setInt(9, history.getAmountOfLossesChanges());
+            ps.setInt(10, history.getAmountOfDrawsChanges());
+            ps.setInt(11, history.getColorBalanceChanges());
+            ps.setBoolean(12, history.getHadByeChanges());
+            ps.setBoolean(13, history.getGeneratedWithRound());
+            ps.setInt(14, history.getRoundOfChanges());
+        });
+    }
+
+    private static String nameKey(String firstName, String lastName) {
+        return firstName + "\n" + lastName;
+    }
+}
@@ -2,11 +2,19 @@ package org.chessunion.service;
 
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.chessunion.config.CacheConfig;
 import org.chessunion.dto.*;
 import org.chessunion.entity.*;
+import org.chessunion.event.TournamentEvent;
 import org.chessunion.exception.*;
 import org.chessunion.repository.*;
+import org.chessunion.util.pairing.PairingPlan;
+import org.chessunion.util.pairing.PairingState;
+import org.chessunion.util.pairing.SwissPairingEngine;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -16,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -32,6 +41,13 @@ public class TournamentService {
     private final PlayerHistoryService playerHistoryService;
     private final PlayerHistoryRepository playerHistoryRepository;
     private final MatchRepository matchRepository;
+    private final SwissPairingEngine swissPairingEngine;
+    private final StandingsService standingsService;
+    private final TournamentStandingRepository tournamentStandingRepository;
+    private final CacheEvictionService cacheEvictionService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final RoundPlanService roundPlanService;
+    private final RatingPeriodService ratingPeriodService;
 
     public Page<TournamentListElementDto> getAllTournaments(Pageable pageable) {
         return tournamentRepository.findAllByOrderByCreatedAtDesc(pageable).map(this::tournamentToListElementDto);
@@ -44,6 +60,9 @@ public class TournamentService {
         tournament.setCreatedAt(LocalDateTime.now());
         tournament.setCurrentRound(0);
         tournament.setStage(Tournament.Stage.REGISTRATION);
+        if (tournament.getRatingSystem() == null) {
+            tournament.setRatingSystem(Tournament.RatingSystem.ELO);
+        }
 
         tournamentRepository.save(tournament);
     }
@@ -55,6 +74,7 @@ public class TournamentService {
         modelMapper.map(updateTournamentDto, tournament);
 
         tournamentRepository.save(tournament);
+        cacheEvictionService.evictTournament(id, tournament.getCurrentRound());
     }
 
     @Transactional
@@ -71,11 +91,14 @@ public class TournamentService {
 //            userService.saveRatings(tournament.getId());
 //        }
         // при необходимости — сначала удалить связанные матчи и игроков
+        cacheEvictionService.evictTournamentPlayers(tournament.getId());
         matchRepository.deleteAllByTournamentId(tournament.getId());
+        tournamentStandingRepository.deleteAllByTournamentId(tournament.getId());
         playerRepository.deleteAllByTournamentId(tournament.getId());
         playerHistoryRepository.deleteAllByTournamentId(tournament.getId());
 
         tournamentRepository.delete(tournament);
+        cacheEvictionService.evictTournament(id, tournament.getCurrentRound());
     }
 
     @Transactional
@@ -106,7 +129,13 @@ public class TournamentService {
         player.setAmountOfWins(user.getAmountOfWins());
         player.setAmountOfLosses(user.getAmountOfLosses());
         player.setAmountOfMatches(user.getAmountOfMatches());
-        player.setRating(user.getRating());
+        if (tournament.getRatingSystem() == Tournament.RatingSystem.GLICKO2 && user.getGlickoRating() != null) {
+            player.setRating(user.getGlickoRating());
+        } else {
+            player.setRating(user.getRating());
+        }
+        player.setRatingDeviation(user.getRatingDeviation());
+        player.setVolatility(user.getVolatility());
         player.setUser(user);
         player.setTournament(tournament);
         player.setCreatedAt(LocalDateTime.now());
@@ -117,8 +146,10 @@ public class TournamentService {
 
         tournament.setPlayers(players);
         tournamentRepository.save(tournament);
+        cacheEvictionService.evictTournament(id, tournament.getCurrentRound());
     }
 
+    @Cacheable(cacheNames = CacheConfig.TOURNAMENTS, key = "#id")
     public TournamentDto findById(int id){
         Tournament tournament = tournamentRepository.findById(id).orElseThrow(() -> new TournamentNotFoundException(id));
         return tournamentToDto(tournament);
@@ -167,6 +198,7 @@ public class TournamentService {
         }
 
         int half = playersCount / 2;
+        List<MatchPair> pairs = new ArrayList<>(half);
         for (int i = 0; i < half; i++) {
             Player p1 = rotation.get(i);
             Player p2 = rotation.get(playersCount - 1 - i);
@@ -191,21 +223,31 @@ public class TournamentService {
             }
 
             if (p1.getColorBalance() > p2.getColorBalance()) {
-                matchService.createMatch(p1, p2, tournament);
-            } else if (p1.getColorBalance() <= p2.getColorBalance()) {
-                matchService.createMatch(p2, p1, tournament);
+                pairs.add(new MatchPair(p1, p2));
+            } else {
+                pairs.add(new MatchPair(p2, p1));
             }
         }
+        matchService.createRound(pairs, tournament);
     }
 
     @Transactional
     public int generateNextRound(int id){
         Tournament tournament = tournamentRepository.findById(id).orElseThrow(()-> new TournamentNotFoundException(id));
+        // повторный запрос к завершённому турниру ничего не меняет, иначе последний тур пересчитался бы ещё раз
+        if (tournament.getStage() == Tournament.Stage.FINISHED) {
+            return tournament.getCurrentRound();
+        }
 
         if (tournament.getCurrentRound() == tournament.getAmountOfRounds() ) {
+            // для Glicko-2 сыгранный тур — рейтинговый период
+            ratingPeriodService.closeRound(tournament, tournament.getCurrentRound());
             tournament.setStage(Tournament.Stage.FINISHED);
             userService.saveRatings(tournament.getId());
             tournamentRepository.save(tournament);
+            cacheEvictionService.evictTournament(id, tournament.getCurrentRound());
+            applicationEventPublisher.publishEvent(new TournamentEvent(id, TournamentEvent.Type.TOURNAMENT_FINISHED,
+                    tournament.getCurrentRound(), List.of(), List.of()));
             return tournament.getCurrentRound();
         }
         if (tournament.getPlayers().size() < tournament.getMinAmountOfPlayers()){
@@ -214,6 +256,7 @@ public class TournamentService {
         if (tournament.getPlayers().size() > tournament.getMaxAmountOfPlayers()){
             throw new TooManyPlayersException(tournament.getPlayers().size(), tournament.getMinAmountOfPlayers());
         }
+        ratingPeriodService.closeRound(tournament, tournament.getCurrentRound());
 
         if (tournament.getCurrentRound() == 0 && tournament.getSystemType() == Tournament.SystemType.ROUND_ROBIN) {
             tournament.setCurrentRound(1);
@@ -232,7 +275,12 @@ public class TournamentService {
             tournament.setCurrentRound(tournament.getCurrentRound() + 1);
             generateNonFirstRound(tournament);
         }
+        List<StandingChangeDto> standingChanges = standingsService.rebuild(tournament);
         tournamentRepository.save(tournament);
+        cacheEvictionService.evictTournament(id, tournament.getCurrentRound());
+        cacheEvictionService.evictTournamentPlayers(id);
+        applicationEventPublisher.publishEvent(new TournamentEvent(id, TournamentEvent.Type.ROUND_GENERATED, tournament.getCurrentRound(),
+                matchService.findMatchesByTournamentRound(id, tournament.getCurrentRound()), standingChanges));
         return tournament.getCurrentRound();
     }
 
@@ -255,207 +303,53 @@ public class TournamentService {
         List<Player> topGroup = players.subList(0, half);
         List<Player> bottomGroup = players.subList(half, players.size());
 
+        List<MatchPair> pairs = new ArrayList<>(half);
         for (int i = 0; i < half; i++) {
-            matchService.createMatch(topGroup.get(i), bottomGroup.get(i), tournament);
+            pairs.add(new MatchPair(topGroup.get(i), bottomGroup.get(i)));
         }
+        matchService.createRound(pairs, tournament);
     }
 
     @Transactional
     protected void generateNonFirstRound(Tournament tournament) {
-        List<Player> players = new ArrayList<>(tournament.getPlayers());
-        players.sort((p1, p2) -> {
-            int scoreCompare = Double.compare(p2.getScore(), p1.getScore());
-            return scoreCompare != 0 ? scoreCompare :
-                    Double.compare(p2.getRating(), p1.getRating());
-        });
-
-        // Загружаем всех противников для всех игроков
-        Map<Integer, Set<Integer>> opponentsMap = new HashMap<>();
-        for (Player player : players) {
-            opponentsMap.put(player.getId(), playerService.getAllOpponentIds(player));
-        }
-
-        if (players.size() % 2 != 0) {
-            Player byePlayer = players.getLast(); // последний в списке
-            if (!byePlayer.isHadBye()) {
-                byePlayer.setScore(byePlayer.getScore() + 1);
-                byePlayer.setHadBye(true);
-                players.removeLast();
-                PlayerHistory playerHistory = new PlayerHistory(tournament.getId(), byePlayer.getId(), LocalDateTime.now(), tournament.getCurrentRound());
-                playerHistory.setHadByeChanges(true);
-                playerHistory.setScoreChanges(1.0);
-                playerHistoryRepository.save(playerHistory);
-            } else {
-                // если уже получал bye — ищем следующего кандидата
-                for (int i = players.size() - 1; i >= 0; i--) {
-                    Player candidate = players.get(i);
-                    if (!candidate.isHadBye()) {
-                        candidate.setScore(candidate.getScore() + 1);
-                        candidate.setHadBye(true);
-                        players.remove(i);
-                        PlayerHistory playerHistory = new PlayerHistory(tournament.getId(), candidate.getId(), LocalDateTime.now(), tournament.getCurrentRound());
-                        playerHistory.setHadByeChanges(true);
-                        playerHistory.setScoreChanges(1.0);
-                        playerHistoryRepository.save(playerHistory);
-                        break;
-                    }
-                }
-            }
-        }
-
-        List<MatchPair> pairs = new ArrayList<>();
-        List<Player> unpairedPlayers = new ArrayList<>(players);
+        List<Player> players = tournament.getPlayers();
 
-        Map<Boolean, List<MatchPair>> pairsMap = findPairsWithBacktracking(unpairedPlayers, opponentsMap, pairs, new HashSet<>());
+        // снимок поля: дальше жеребьёвка работает только с примитивами
+        PairingState state = playerService.pairingSnapshot(tournament.getId(), players).build();
 
-        if (!pairsMap.keySet().iterator().next()) {
-            System.out.println("Ошибка расчета жеребьёвки");
-            throw new NotEnoughPlayersException(unpairedPlayers.size(), unpairedPlayers.size());
-        } else {
-            for (MatchPair pair : pairsMap.get(true)) {
-                matchService.createMatch(pair.getWhitePlayer(), pair.getBlackPlayer(), tournament);
-            }
-        }
+        // план мог быть посчитан заранее, пока доигрывались последние доски
+        PairingPlan plan = roundPlanService.takePlan(tournament.getId(), state)
+                .or(() -> swissPairingEngine.pair(state))
+                .orElseThrow(() -> {
+                    log.warn("No complete pairing for tournament {} round {}", tournament.getId(), tournament.getCurrentRound());
+                    return new NotEnoughPlayersException(players.size(), players.size());
+                });
 
-        // Используем итератор для безопасного удаления
-//        List<Player> remainingPlayers = new ArrayList<>(players);
-//
-//        while (!remainingPlayers.isEmpty()) {
-//            Player firstPlayer = remainingPlayers.removeFirst();
-//            Set<Integer> firstPlayerOpponents = opponentsMap.get(firstPlayer.getId());
-//
-//            Player bestMatch = getBestMatchPlayer(remainingPlayers, firstPlayerOpponents, firstPlayer);
-//
-//            if (bestMatch != null) {
-//                if (firstPlayer.getColorBalance() > bestMatch.getColorBalance()) {
-//                    matchService.createMatch(firstPlayer, bestMatch, tournament);
-//                } else {
-//                    matchService.createMatch(bestMatch, firstPlayer, tournament);
-//                }
-//                remainingPlayers.remove(bestMatch);
-//            } else {
-//                firstPlayer.setScore(firstPlayer.getScore() + 1);
-//                PlayerHistory playerHistory = new PlayerHistory(tournament.getId(), firstPlayer.getId(), LocalDateTime.now(), tournament.getCurrentRound());
-//                playerHistory.setScoreChanges(1.0);
-//                playerHistoryRepository.save(playerHistory);
-//                playerRepository.save(firstPlayer);
-//            }
-//        }
+        applyPairingPlan(tournament, plan);
     }
 
-//    private static Player getBestMatchPlayer(List<Player> remainingPlayers, Set<Integer> firstPlayerOpponents, Player firstPlayer) {
-//        Player bestMatch = null;
-//        int bestColorDiff = Integer.MAX_VALUE;
-//
-//        for (Player candidate : remainingPlayers) {
-//            // Проверяем по ID, а не по объектам
-//            if (!firstPlayerOpponents.contains(candidate.getId())) {
-//                int colorDiff = Math.abs(firstPlayer.getColorBalance() - candidate.getColorBalance());
-//                if (colorDiff < bestColorDiff) {
-//                    bestColorDiff = colorDiff;
-//                    bestMatch = candidate;
-//                }
-//            }
-//        }
-//        return bestMatch;
-//    }
-
-    private Map<Boolean, List<MatchPair>> findPairsWithBacktracking(List<Player> players,
-                                              Map<Integer, Set<Integer>> opponentsMap,
-                                              List<MatchPair> pairs,
-                                              Set<Integer> usedPlayers) {
-        if (players.isEmpty()) return Map.of(true, pairs);
-
-        Player current = players.getFirst();
-
-        for (int i = 1; i < players.size(); i++) {
-            Player candidate = players.get(i);
-
-
-            if (!opponentsMap.get(current.getId()).contains(candidate.getId()) &&
-                    !usedPlayers.contains(candidate.getId()) &&
-                    !(
-                            current.getColorBalance() == candidate.getColorBalance() && (current.getColorBalance() == 2 || current.getColorBalance() == -2)
-                    ) && colorCompatibilityCheck(current, candidate)) {
-
-                if (!colorCheck(current).keySet().iterator().next()) {
-                    if (colorCheck(current).get(false) == 'w') {
-                        pairs.add(new MatchPair(candidate, current));
-                    } else {
-                        pairs.add(new MatchPair(current, candidate));
-                    }
-                } else if (!colorCheck(candidate).keySet().iterator().next()) {
-                    if (colorCheck(candidate).get(false) == 'b') {
-                        pairs.add(new MatchPair(candidate, current));
-                    } else {
-                        pairs.add(new MatchPair(current, candidate));
-                    }
-                } else {
-                    if (current.getColorBalance() > candidate.getColorBalance()) {
-                        pairs.add(new MatchPair(current, candidate));
-                    } else{
-                        pairs.add(new MatchPair(candidate, current));
-                    }
-                }
-
-
-                usedPlayers.add(current.getId());
-                usedPlayers.add(candidate.getId());
-
-                List<Player> remaining = new ArrayList<>(players);
-                remaining.remove(current);
-                remaining.remove(candidate);
-
-                if (findPairsWithBacktracking(remaining, opponentsMap, pairs, usedPlayers).keySet().iterator().next()) {
-                    return Map.of(true, pairs);
-                }
-
-                // Backtrack
-                pairs.removeLast();
-                usedPlayers.remove(current.getId());
-                usedPlayers.remove(candidate.getId());
-            }
+    private void applyPairingPlan(Tournament tournament, PairingPlan plan) {
+        Map<Integer, Player> playersById = new HashMap<>();
+        for (Player player : tournament.getPlayers()) {
+            playersById.put(player.getId(), player);
         }
 
-        return Map.of(false, pairs);
-    }
-
-    private Boolean colorCompatibilityCheck(Player player1, Player player2) {
-        Map<Boolean, Character> colorCheckP1 = colorCheck(player1);
-        Map<Boolean, Character> colorCheckP2 = colorCheck(player2);
-        boolean keyP1 = colorCheckP1.keySet().iterator().next();
-        boolean keyP2 = colorCheckP2.keySet().iterator().next();
-        Character colorP1 = colorCheckP1.get(keyP1);
-        Character colorP2 = colorCheckP2.get(keyP2);
-
-
-        if (keyP1 && keyP2) {
-            return true;
-        } else if (!keyP2 && !keyP1) {
-            if (colorP1 == colorP2) {
-                return false;
-            } else {
-                return (colorP1 != 'b' || player2.getColorBalance() != 2) && (colorP1 != 'w' || player2.getColorBalance() != -2)
-                        && (colorP2 != 'b' || player1.getColorBalance() != 2) && (colorP2 != 'w' || player1.getColorBalance() != -2);
-            }
-        } else {
-            if (!keyP2) {
-                return (colorP2 != 'b' || player1.getColorBalance() != 2) && (colorP2 != 'w' || player1.getColorBalance() != -2);
-            } else {
-                return (colorP1 != 'b' || player2.getColorBalance() != 2) && (colorP1 != 'w' || player2.getColorBalance() != -2);
-            }
+        if (plan.byePlayerId() != PairingPlan.NO_BYE) {
+            Player byePlayer = playersById.get(plan.byePlayerId());
+            byePlayer.setScore(byePlayer.getScore() + 1);
+            byePlayer.setHadBye(true);
+            PlayerHistory playerHistory = new PlayerHistory(tournament.getId(), byePlayer.getId(), LocalDateTime.now(), tournament.getCurrentRound());
+            playerHistory.setHadByeChanges(true);
+            playerHistory.setScoreChanges(1.0);
+            playerHistoryRepository.save(playerHistory);
         }
-    }
 
-    private Map<Boolean, Character> colorCheck(Player player) {
-        char[] colorHistory = player.getColorHistory().toCharArray();
-        if (colorHistory.length < 2) {
-            return Map.of(true, 'n');
-        }
-        if (colorHistory[colorHistory.length - 2] == colorHistory[colorHistory.length - 1]) {
-            return Map.of(false, colorHistory[colorHistory.length - 1]);
+        List<MatchPair> pairs = new ArrayList<>(plan.boards());
+        for (int board = 0; board < plan.boards(); board++) {
+            pairs.add(new MatchPair(playersById.get(plan.whitePlayerIds()[board]),
+                    playersById.get(plan.blackPlayerIds()[board])));
         }
-        return Map.of(true, 'n');
+        matchService.createRound(pairs, tournament);
     }
 
     @Transactional
@@ -487,7 +381,12 @@ public class TournamentService {
         if (tournament.getCurrentRound() == 0) {
             tournament.setStage(Tournament.Stage.REGISTRATION);
         }
+        List<StandingChangeDto> standingChanges = standingsService.rebuild(tournament);
         tournamentRepository.save(tournament);
+        cacheEvictionService.evictTournament(id, currentRound);
+        cacheEvictionService.evictTournamentPlayers(id);
+        applicationEventPublisher.publishEvent(new TournamentEvent(id, TournamentEvent.Type.ROUND_ROLLED_BACK, currentRound,
+                List.of(), standingChanges));
     }
 
 
@@ -495,18 +394,7 @@ public class TournamentService {
     private TournamentDto tournamentToDto(Tournament tournament) {
         TournamentDto dto = modelMapper.map(tournament, TournamentDto.class);
 
-        List<PlayerDto> playerDtoList = tournament.getPlayers().stream()
-                .map(player -> {
-                    PlayerDto playerDto = modelMapper.map(player, PlayerDto.class);
-                    playerDto.setUserId(player.getUser().getId());
-                    playerDto.setSecondScore(playerService.calculateSecondScore(player));
-                    playerDto.setFullName(playerService.getFullName(player));
-                    return playerDto;
-                })
-                .sorted(Comparator.comparingDouble(PlayerDto::getScore)
-                        .thenComparingDouble(PlayerDto::getSecondScore)
-                        .reversed())
-                .toList();
+        List<PlayerDto> playerDtoList = standingsService.getStandings(tournament);
 
         dto.setPlayers(playerDtoList);
         return dto;
@@ -2,15 +2,19 @@ package org.chessunion.service;
 
 
 import lombok.RequiredArgsConstructor;
+import org.chessunion.config.CacheConfig;
 import org.chessunion.dto.*;
 import org.chessunion.entity.Player;
 import org.chessunion.entity.Role;
+import org.chessunion.entity.Tournament;
 import org.chessunion.entity.User;
 import org.chessunion.exception.PhoneNumberNotFoundException;
 import org.chessunion.exception.UsernameAlreadyExistsException;
 import org.chessunion.repository.PlayerRepository;
 import org.chessunion.repository.RoleRepository;
 import org.chessunion.repository.UserRepository;
+import org.chessunion.security.TokenRevocationList;
+import org.chessunion.security.VerifiedTokenCache;
 import org.modelmapper.ModelMapper;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -25,6 +29,7 @@ import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 @Service
@@ -38,8 +43,11 @@ public class UserService {
     private final MatchService matchService;
     private final PlayerRepository playerRepository;
     private final PhoneNumberService phoneNumberService;
+    private final CacheEvictionService cacheEvictionService;
+    private final TokenRevocationList tokenRevocationList;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    @Cacheable(cacheNames = "profiles", key = "#principal.getName()", unless = "#result == null")
+    @Cacheable(cacheNames = CacheConfig.PROFILES, key = "#principal.getName()", condition = CacheConfig.FIRST_PAGE, unless = "#result == null")
     public ProfileDto getProfile(Principal principal, Pageable pageable) {
         User user = userRepository.findByUsername(principal.getName()).orElseThrow(() -> new UsernameNotFoundException(principal.getName()));
 
@@ -97,6 +105,9 @@ public class UserService {
     }
     private void deleteUser(User user) {
         userRepository.delete(user);
+        tokenRevocationList.revoke(user.getUsername());
+        cacheEvictionService.evictUser(user.getId(), user.getUsername());
+        cacheEvictionService.evictTopList();
     }
 
     @Transactional
@@ -114,7 +125,7 @@ public class UserService {
     }
 
     @Transactional
-    @CacheEvict(cacheNames = "profiles", key = "#username")
+    @CacheEvict(cacheNames = CacheConfig.PROFILES, key = "#username")
     public void updateEmail(String username, String email) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
@@ -128,25 +139,32 @@ public class UserService {
                 .orElseThrow(() -> new UsernameNotFoundException(principal.getName()));
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        verifiedTokenCache.invalidateUser(user.getUsername());
     }
 
     @Transactional
-    @CacheEvict(cacheNames = "profiles", allEntries = true)
     public void saveRatings(Integer tournamentId) {
         List<Player> players = playerRepository.findAllByTournament_Id(tournamentId);
         for (Player player : players) {
             User user = player.getUser();
-            user.setRating(player.getRating());
+            if (player.getTournament().getRatingSystem() == Tournament.RatingSystem.GLICKO2) {
+                user.setGlickoRating(player.getRating());
+            } else {
+                user.setRating(player.getRating());
+            }
+            user.setRatingDeviation(player.getRatingDeviation());
+            user.setVolatility(player.getVolatility());
             user.setAmountOfWins(player.getAmountOfWins());
             user.setAmountOfLosses(player.getAmountOfLosses());
             user.setAmountOfMatches(player.getAmountOfMatches());
             user.setAmountOfDraws(player.getAmountOfDraws());
             userRepository.save(user);
+            cacheEvictionService.evictUser(user.getId(), user.getUsername());
         }
+        cacheEvictionService.evictTopList();
     }
 
     @Transactional
-    @CacheEvict(cacheNames = "profiles", allEntries = true)
     public void updateProfile(Principal principal, UpdateProfileDto updateProfile){
         User user = userRepository.findByUsername(principal.getName()).orElseThrow(() -> new UsernameNotFoundException(principal.getName()));
 
@@ -163,6 +181,12 @@ public class UserService {
         user.setEmail(updateProfile.getEmail());
 
         userRepository.save(user);
+        if (!principal.getName().equals(user.getUsername())) {
+            // токены старого имени иначе жили бы до конца срока, а имя может занять другой пользователь
+            tokenRevocationList.revoke(principal.getName());
+        }
+        cacheEvictionService.evictUser(user.getId(), principal.getName());
+        cacheEvictionService.evictTopList();
     }
 
     @Transactional
@@ -177,8 +201,11 @@ public class UserService {
         user.setRoles(roles);
 
         userRepository.save(user);
+        // в выданных токенах остались старые роли
+        tokenRevocationList.revoke(username);
     }
 
+    @Cacheable(cacheNames = CacheConfig.TOP_LIST, key = "#pageable.pageNumber + ':' + #pageable.pageSize", condition = "#pageable.sort.unsorted")
     public Page<TopListElementDto> getTopList(Pageable pageable) {
         Page<User> userPage = userRepository.findAllByOrderByRatingDesc(pageable);
 
@@ -202,6 +229,7 @@ public class UserService {
             user.setPhoneNumber(number);
 
             userRepository.save(user);
+            cacheEvictionService.evictUser(user.getId(), user.getUsername());
         } else {
             throw new PhoneNumberNotFoundException(number);
         }
@@ -227,6 +255,7 @@ public class UserService {
         user.setBanned(true);
         user.setUnbanDate(null);
         userRepository.save(user);
+        tokenRevocationList.revoke(user.getUsername());
     }
 
     @Transactional
@@ -235,6 +264,7 @@ public class UserService {
         user.setBanned(true);
         user.setUnbanDate(until);
         userRepository.save(user);
+        tokenRevocationList.revoke(user.getUsername());
     }
 
     @Transactional
@@ -268,18 +298,19 @@ public class UserService {
         }
     }
 
+    /**
+     * User with roles by username or, if the login contains "@", by email. A ban that is over is lifted.
+     */
     @Transactional
-    public void tryToUnbanUsername(String username) {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User not found, name: " + username));
-        tryToUnbanUser(user);
-    }
-
-    @Transactional
-    public void tryToUnbanEmail(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("User not found, email: " + email));
-        tryToUnbanUser(user);
+    public Optional<User> findForLogin(String login) {
+        Optional<User> user = login.contains("@") ?
+                userRepository.findWithRolesByEmail(login) :
+                userRepository.findWithRolesByUsername(login);
+        user.ifPresent(this::tryToUnbanUser);
+        return user;
     }
 
+    @Cacheable(cacheNames = CacheConfig.PUBLIC_PROFILES, key = "#userId", condition = CacheConfig.FIRST_PAGE)
     public PublicProfileDto getPublicUserProfile(int userId, Pageable pageable) {
         User user = userRepository.findById(userId).orElseThrow(() -> new UsernameNotFoundException("User not found, id: " + userId));
         PublicProfileDto publicProfileDto = modelMapper.map(user, PublicProfileDto.class);
@@ -295,6 +326,7 @@ public class UserService {
         User user = userRepository.findByUsername(principal.getName()).orElseThrow(() -> new UsernameNotFoundException("User not found, username: " + principal.getName()));
         user.setAboutSelf(aboutSelf);
         userRepository.save(user);
+        cacheEvictionService.evictUser(user.getId(), user.getUsername());
         return aboutSelf;
     }
 }
@@ -0,0 +1,44 @@
+package org.chessunion.util.cache;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Near-cache invalidations between backend replicas over Redis pub/sub.
+ * Message: {@code nodeId \n cacheName [\n key]}, no key means the whole cache.
+ */
+public class CacheInvalidationBus implements MessageListener {
+    public static final String CHANNEL = "chessunion:cache-invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private volatile BiConsumer<String, String> nearEvictor = (cacheName, key) -> { };
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void subscribe(BiConsumer<String, String> nearEvictor) {
+        this.nearEvictor = nearEvictor;
+    }
+
+    public void publish(String cacheName, String key) {
+        String message = key == null ? nodeId + "\n" + cacheName : nodeId + "\n" + cacheName + "\n" + key;
+        redisTemplate.convertAndSend(CHANNEL, message);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        // свои же сообщения пропускаем: локальный уровень уже очищен
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        nearEvictor.accept(parts[1], parts.length == 3 ? parts[2] : null);
+    }
+}
@@ -0,0 +1,156 @@
+package org.chessunion.util.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-heap near cache in front of a shared (Redis) cache. Reads go to the near tier first and fill
+ * it from the remote tier; evictions clear both tiers and are broadcast so other nodes drop their
+ * near copies. Near keys are the string form of the key, the same form Redis uses.
+ */
+public class TwoTierCache implements Cache {
+    private final Cache nearCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final LongAdder nearHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TwoTierCache(Cache nearCache, Cache remoteCache, CacheInvalidationBus invalidationBus) {
+        this.nearCache = nearCache;
+        this.remoteCache = remoteCache;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @Override
+    public String getName() {
+        return remoteCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String nearKey = nearKey(key);
+        ValueWrapper value = nearCache.get(nearKey);
+        if (value != null) {
+            nearHits.increment();
+            return value;
+        }
+        value = remoteCache.get(key);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        nearCache.put(nearKey, value.get());
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        remoteCache.put(key, value);
+        nearCache.put(nearKey(key), value);
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String nearKey = nearKey(key);
+        remoteCache.evict(key);
+        nearCache.evict(nearKey);
+        evictions.increment();
+        invalidationBus.publish(getName(), nearKey);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        nearCache.clear();
+        invalidationBus.publish(getName(), null);
+    }
+
+    /**
+     * Invalidation received from another node: the remote tier is already up to date.
+     */
+    public void evictNear(String nearKey) {
+        if (nearKey == null) {
+            nearCache.clear();
+        } else {
+            nearCache.evict(nearKey);
+        }
+    }
+
+    public long nearHitCount() {
+        return nearHits.sum();
+    }
+
+    public long hitCount() {
+        return nearHits.sum() + remoteHits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private static String nearKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,64 @@
+package org.chessunion.util.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Puts a Caffeine near cache in front of the listed caches of the remote manager, the rest are
+ * served by the remote manager alone. All caches are transaction aware.
+ */
+public class TwoTierCacheManager implements CacheManager {
+    private final CacheManager remoteCacheManager;
+    private final Set<String> nearCacheNames;
+    private final Caffeine<Object, Object> nearCacheBuilder;
+    private final CacheInvalidationBus invalidationBus;
+    private final ConcurrentMap<String, TwoTierCache> twoTierCaches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager, Set<String> nearCacheNames,
+                               Caffeine<Object, Object> nearCacheBuilder, CacheInvalidationBus invalidationBus) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.nearCacheNames = nearCacheNames;
+        this.nearCacheBuilder = nearCacheBuilder;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(this::evictNear);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        if (nearCacheNames.contains(name)) {
+            TwoTierCache twoTierCache = twoTierCaches.computeIfAbsent(name, n ->
+                    new TwoTierCache(new CaffeineCache(n, nearCacheBuilder.build(), false), remoteCache, invalidationBus));
+            return caches.computeIfAbsent(name, n -> new TransactionAwareCacheDecorator(twoTierCache));
+        }
+        return caches.computeIfAbsent(name, n -> new TransactionAwareCacheDecorator(remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    private void evictNear(String cacheName, String key) {
+        TwoTierCache cache = twoTierCaches.get(cacheName);
+        if (cache != null) {
+            cache.evictNear(key);
+        }
+    }
+}
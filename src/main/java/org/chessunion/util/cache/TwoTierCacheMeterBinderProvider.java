@@ -0,0 +1,53 @@
+package org.chessunion.util.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+/**
+ * cache.gets / cache.puts / cache.evictions for two-tier caches, plus cache.near.hits for the share
+ * of hits served from heap.
+ */
+public class TwoTierCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoTierCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoTierCache cache, Iterable<Tag> tags) {
+        return new CacheMeterBinder<>(cache, cache.getName(), tags) {
+            @Override
+            protected Long size() {
+                return null;
+            }
+
+            @Override
+            protected long hitCount() {
+                return cache.hitCount();
+            }
+
+            @Override
+            protected Long missCount() {
+                return cache.missCount();
+            }
+
+            @Override
+            protected Long evictionCount() {
+                return cache.evictionCount();
+            }
+
+            @Override
+            protected long putCount() {
+                return cache.putCount();
+            }
+
+            @Override
+            protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+                FunctionCounter.builder("cache.near.hits", cache, TwoTierCache::nearHitCount)
+                        .tags(getTagsWithCacheName())
+                        .description("The number of times cache lookup methods were served from the in-heap tier")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package org.chessunion.util.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Game list in PGN: the Seven Tag Roster and the result, no moves.
+ */
+public class PgnWriter {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    private final Writer out;
+    private final String event;
+    private final String site;
+    private final String date;
+
+    public PgnWriter(Writer out, String event, String site, LocalDate date) {
+        this.out = out;
+        this.event = event;
+        this.site = site;
+        this.date = date == null ? "????.??.??" : DATE.format(date);
+    }
+
+    /**
+     * @param result points of white, null if the game is not finished
+     */
+    public void game(int round, String white, String black, Double result) throws IOException {
+        String resultToken = resultToken(result);
+        tag("Event", event);
+        tag("Site", site);
+        tag("Date", date);
+        tag("Round", String.valueOf(round));
+        tag("White", white);
+        tag("Black", black);
+        tag("Result", resultToken);
+        out.write("\n" + resultToken + "\n\n");
+    }
+
+    private void tag(String name, String value) throws IOException {
+        String escaped = (value == null || value.isBlank() ? "?" : value).replace("\\", "\\\\").replace("\"", "\\\"");
+        out.write("[" + name + " \"" + escaped + "\"]\n");
+    }
+
+    private static String resultToken(Double result) {
+        if (result == null) {
+            return "*";
+        }
+        if (result == 1.0) {
+            return "1-0";
+        }
+        return result == 0.5 ? "1/2-1/2" : "0-1";
+    }
+}
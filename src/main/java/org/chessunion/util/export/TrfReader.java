@@ -0,0 +1,120 @@
+package org.chessunion.util.export;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TRF-16 reader. The file is read line by line; only header records and player lines are kept,
+ * the round blocks of a player as three primitive arrays.
+ */
+public class TrfReader {
+    private static final int FIRST_ROUND_COLUMN = 89;
+    private static final int ROUND_WIDTH = 10;
+    private static final List<DateTimeFormatter> DATES = List.of(
+            DateTimeFormatter.ofPattern("yyyy/MM/dd"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("yyyy.MM.dd"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+    private TrfReader() {
+    }
+
+    /**
+     * @param source name of the file, used in error messages
+     */
+    public static TrfTournament read(BufferedReader reader, String source) throws IOException {
+        String name = null;
+        String city = null;
+        LocalDate startDate = null;
+        int rounds = 0;
+        List<TrfTournament.TrfPlayer> players = new ArrayList<>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.length() < 3) {
+                continue;
+            }
+            String value = line.length() > 4 ? line.substring(4).trim() : "";
+            try {
+                switch (line.substring(0, 3)) {
+                    case "012" -> name = value;
+                    case "022" -> city = value;
+                    case "042" -> startDate = parseDate(value);
+                    case "XXR" -> rounds = Integer.parseInt(value);
+                    case "001" -> players.add(player(line));
+                    default -> {
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(source + ":" + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        for (TrfTournament.TrfPlayer player : players) {
+            rounds = Math.max(rounds, player.opponents().length);
+        }
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException(source + ": no tournament name (012)");
+        }
+        if (players.isEmpty()) {
+            throw new IllegalArgumentException(source + ": no players (001)");
+        }
+        return new TrfTournament(name, city, startDate, rounds, players);
+    }
+
+    private static TrfTournament.TrfPlayer player(String line) {
+        int startRank = Integer.parseInt(column(line, 4, 8));
+        String fullName = column(line, 14, 47);
+        String lastName = fullName;
+        String firstName = "";
+        int comma = fullName.indexOf(',');
+        if (comma >= 0) {
+            lastName = fullName.substring(0, comma).trim();
+            firstName = fullName.substring(comma + 1).trim();
+        }
+
+        int roundCount = Math.max(0, (line.length() - FIRST_ROUND_COLUMN + ROUND_WIDTH - 1) / ROUND_WIDTH);
+        int[] opponents = new int[roundCount];
+        char[] colours = new char[roundCount];
+        char[] results = new char[roundCount];
+        for (int round = 0; round < roundCount; round++) {
+            int start = FIRST_ROUND_COLUMN + round * ROUND_WIDTH;
+            String opponent = column(line, start + 2, start + 6);
+            opponents[round] = opponent.isEmpty() ? 0 : Integer.parseInt(opponent);
+            colours[round] = charAt(line, start + 7, '-');
+            results[round] = charAt(line, start + 9, ' ');
+        }
+        return new TrfTournament.TrfPlayer(startRank, lastName, firstName, opponents, colours, results);
+    }
+
+    private static LocalDate parseDate(String value) {
+        for (DateTimeFormatter format : DATES) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // пробуем следующий формат
+            }
+        }
+        return null;
+    }
+
+    // столбцы в TRF считаются с нуля здесь и с единицы в спецификации
+    private static String column(String line, int from, int to) {
+        if (from >= line.length()) {
+            return "";
+        }
+        return line.substring(from, Math.min(to, line.length())).trim();
+    }
+
+    private static char charAt(String line, int index, char missing) {
+        return index < line.length() && line.charAt(index) != ' ' ? line.charAt(index) : missing;
+    }
+}
@@ -0,0 +1,28 @@
+package org.chessunion.util.export;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Tournament read from a TRF-16 file. Players keep the file's starting ranks.
+ */
+public record TrfTournament(String name, String city, LocalDate startDate, int rounds, List<TrfPlayer> players) {
+
+    /**
+     * Round blocks are indexed by round - 1; opponent 0 means no opponent (bye or absence).
+     */
+    public record TrfPlayer(int startRank, String lastName, String firstName, int[] opponents, char[] colours, char[] results) {
+
+        public int opponent(int round) {
+            return round <= opponents.length ? opponents[round - 1] : 0;
+        }
+
+        public char colour(int round) {
+            return round <= colours.length ? colours[round - 1] : '-';
+        }
+
+        public char result(int round) {
+            return round <= results.length ? results[round - 1] : ' ';
+        }
+    }
+}
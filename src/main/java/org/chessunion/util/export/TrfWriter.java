@@ -0,0 +1,90 @@
+package org.chessunion.util.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * FIDE TRF-16 writer. Player lines are written one at a time: {@link #startPlayer}, the games of the player
+ * in round order, {@link #endPlayer}; only the current line is kept in memory.
+ */
+public class TrfWriter {
+    public static final char WHITE = 'w';
+    public static final char BLACK = 'b';
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private final Writer out;
+    private final int rounds;
+    private final StringBuilder line = new StringBuilder(128);
+    private final String[] roundBlocks;
+
+    public TrfWriter(Writer out, int rounds) {
+        this.out = out;
+        this.rounds = rounds;
+        this.roundBlocks = new String[rounds];
+    }
+
+    public void header(String name, String city, LocalDate startDate, int players) throws IOException {
+        out.write("012 " + nullToEmpty(name) + "\n");
+        if (city != null && !city.isBlank()) {
+            out.write("022 " + city + "\n");
+        }
+        if (startDate != null) {
+            out.write("042 " + DATE.format(startDate) + "\n");
+        }
+        out.write("062 " + players + "\n");
+        out.write("XXR " + rounds + "\n");
+    }
+
+    public void startPlayer(int startRank, String name, int rating, double points, int rank) {
+        line.setLength(0);
+        line.append(String.format(Locale.ROOT, "001 %4d %1s%3s %-33.33s %4s %3s %11s %10s %4.1f %4s",
+                startRank, "", "", nullToEmpty(name), rating > 0 ? String.valueOf(rating) : "",
+                "", "", "", points, rank > 0 ? String.valueOf(rank) : ""));
+        Arrays.fill(roundBlocks, null);
+    }
+
+    /**
+     * @param points points of this player, null if the game is not finished
+     */
+    public void game(int round, int opponentRank, char colour, Double points) {
+        if (round < 1 || round > rounds) {
+            return;
+        }
+        roundBlocks[round - 1] = String.format(Locale.ROOT, "  %04d %c %c", opponentRank, colour, resultCode(points));
+    }
+
+    public void bye(int round) {
+        if (round >= 1 && round <= rounds) {
+            roundBlocks[round - 1] = "  0000 - U";
+        }
+    }
+
+    /**
+     * @param playedRounds rounds already paired; a player without a game in one of them was absent
+     */
+    public void endPlayer(int playedRounds) throws IOException {
+        for (int round = 0; round < Math.min(playedRounds, rounds); round++) {
+            line.append(roundBlocks[round] == null ? "  0000 - Z" : roundBlocks[round]);
+        }
+        out.write(line.append('\n').toString());
+    }
+
+    private static char resultCode(Double points) {
+        if (points == null) {
+            return ' ';
+        }
+        if (points == 1.0) {
+            return '1';
+        }
+        return points == 0.5 ? '=' : '0';
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
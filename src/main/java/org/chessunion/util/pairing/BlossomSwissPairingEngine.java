@@ -0,0 +1,126 @@
+package org.chessunion.util.pairing;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Swiss pairing as a maximum-weight perfect matching. Every allowed pair is an edge whose weight
+ * prefers, in strict order: equal scores, opposite colour preferences, and the classic
+ * "top half against bottom half" order inside a score group. Runs in O(n^3).
+ */
+@Component
+public class BlossomSwissPairingEngine implements SwissPairingEngine {
+
+    @Override
+    public Optional<PairingPlan> pair(PairingState state) {
+        int byeIndex = selectBye(state);
+        int byePlayerId = byeIndex == -1 ? PairingPlan.NO_BYE : state.playerId(byeIndex);
+
+        // индексы игроков, участвующих в жеребьёвке (в порядке таблицы)
+        int n = state.size() - (byeIndex == -1 ? 0 : 1);
+        if (n % 2 != 0) {
+            return Optional.empty();
+        }
+        int[] field = new int[n];
+        for (int index = 0, k = 0; index < state.size(); index++) {
+            if (index != byeIndex) {
+                field[k++] = index;
+            }
+        }
+        if (n == 0) {
+            return Optional.of(new PairingPlan(byePlayerId, new int[0], new int[0]));
+        }
+
+        // позиция игрока внутри своей очковой группы и размер группы
+        int[] groupStart = new int[n];
+        int[] groupSize = new int[n];
+        int start = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || state.scoreHalfPoints(field[i]) != state.scoreHalfPoints(field[start])) {
+                for (int j = start; j < i; j++) {
+                    groupStart[j] = start;
+                    groupSize[j] = i - start;
+                }
+                start = i;
+            }
+        }
+
+        long colourFactor = (long) n * n + 1;
+        long scoreFactor = colourFactor * (n + 1);
+
+        int maxEdges = n * (n - 1) / 2;
+        int[] from = new int[maxEdges];
+        int[] to = new int[maxEdges];
+        long[] weight = new long[maxEdges];
+        int edges = 0;
+        long maxPenalty = 0;
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (!state.canPlay(field[i], field[j])) {
+                    continue;
+                }
+                long scoreDiff = Math.abs(state.scoreHalfPoints(field[i]) - state.scoreHalfPoints(field[j]));
+                long penalty = scoreDiff * scoreDiff * scoreFactor
+                        + (sameColourPreference(state, field[i], field[j]) ? colourFactor : 0)
+                        + rankPenalty(i, j, groupStart, groupSize);
+                from[edges] = i;
+                to[edges] = j;
+                weight[edges] = penalty;
+                maxPenalty = Math.max(maxPenalty, penalty);
+                edges++;
+            }
+        }
+        for (int k = 0; k < edges; k++) {
+            weight[k] = maxPenalty + 1 - weight[k];
+        }
+
+        int[] mate = MaxWeightMatching.solve(n, from, to, weight, edges, true);
+
+        int[] white = new int[n / 2];
+        int[] black = new int[n / 2];
+        int board = 0;
+        for (int i = 0; i < n; i++) {
+            if (mate[i] == -1) {
+                return Optional.empty();
+            }
+            if (mate[i] > i) {
+                int current = field[i];
+                int candidate = field[mate[i]];
+                boolean currentWhite = state.whiteFirst(current, candidate);
+                white[board] = state.playerId(currentWhite ? current : candidate);
+                black[board] = state.playerId(currentWhite ? candidate : current);
+                board++;
+            }
+        }
+        return Optional.of(new PairingPlan(byePlayerId, white, black));
+    }
+
+    // технический бал получает последний в таблице, кто его ещё не получал
+    private int selectBye(PairingState state) {
+        if (state.size() % 2 == 0) {
+            return -1;
+        }
+        for (int index = state.size() - 1; index >= 0; index--) {
+            if (!state.hadBye(index)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private long rankPenalty(int i, int j, int[] groupStart, int[] groupSize) {
+        if (groupStart[i] == groupStart[j]) {
+            // внутри группы: первая половина играет со второй (1 - n/2+1, 2 - n/2+2, ...)
+            return Math.abs((j - i) - groupSize[i] / 2);
+        }
+        // между группами: спускаем ближайших по рейтингу
+        return j - i;
+    }
+
+    private boolean sameColourPreference(PairingState state, int i, int j) {
+        int balanceI = state.colourBalance(i);
+        return balanceI != 0 && Integer.signum(balanceI) == Integer.signum(state.colourBalance(j));
+    }
+}
@@ -0,0 +1,636 @@
+package org.chessunion.util.pairing;
+
+import java.util.Arrays;
+
+/**
+ * Maximum-weight matching on a general graph (Edmonds' blossom algorithm with dual variables).
+ * Port of the O(n^3) primal-dual implementation by Joris van Rantwijk (public domain).
+ *
+ * <p>Edges are given as parallel arrays; weights must be non-negative integers. With
+ * {@code maxCardinality} the result is the heaviest among all maximum-cardinality matchings.
+ */
+final class MaxWeightMatching {
+
+    private final int nVertex;
+    private final int nEdge;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final long[] edgeWeight;
+    private final boolean maxCardinality;
+
+    private final int[] endpoint;
+    private final int[][] neighbEnd;
+
+    private final int[] mate;
+    private final int[] label;
+    private final int[] labelEnd;
+    private final int[] inBlossom;
+    private final int[] blossomParent;
+    private final int[][] blossomChilds;
+    private final int[] blossomBase;
+    private final int[][] blossomEndps;
+    private final int[] bestEdge;
+    private final int[][] blossomBestEdges;
+    private final int[] unusedBlossoms;
+    private int unusedBlossomCount;
+    private final long[] dualVar;
+    private final boolean[] allowEdge;
+    private int[] queue;
+    private int queueSize;
+
+    private MaxWeightMatching(int nVertex, int[] edgeFrom, int[] edgeTo, long[] edgeWeight, int nEdge, boolean maxCardinality) {
+        this.nVertex = nVertex;
+        this.nEdge = nEdge;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeWeight = edgeWeight;
+        this.maxCardinality = maxCardinality;
+
+        long maxWeight = 0;
+        int[] degree = new int[nVertex];
+        for (int k = 0; k < nEdge; k++) {
+            maxWeight = Math.max(maxWeight, edgeWeight[k]);
+            degree[edgeFrom[k]]++;
+            degree[edgeTo[k]]++;
+        }
+
+        endpoint = new int[2 * nEdge];
+        neighbEnd = new int[nVertex][];
+        for (int v = 0; v < nVertex; v++) {
+            neighbEnd[v] = new int[degree[v]];
+        }
+        int[] fill = new int[nVertex];
+        for (int k = 0; k < nEdge; k++) {
+            endpoint[2 * k] = edgeFrom[k];
+            endpoint[2 * k + 1] = edgeTo[k];
+            neighbEnd[edgeFrom[k]][fill[edgeFrom[k]]++] = 2 * k + 1;
+            neighbEnd[edgeTo[k]][fill[edgeTo[k]]++] = 2 * k;
+        }
+
+        mate = new int[nVertex];
+        Arrays.fill(mate, -1);
+        label = new int[2 * nVertex];
+        labelEnd = new int[2 * nVertex];
+        Arrays.fill(labelEnd, -1);
+        inBlossom = new int[nVertex];
+        for (int v = 0; v < nVertex; v++) {
+            inBlossom[v] = v;
+        }
+        blossomParent = new int[2 * nVertex];
+        Arrays.fill(blossomParent, -1);
+        blossomChilds = new int[2 * nVertex][];
+        blossomBase = new int[2 * nVertex];
+        for (int v = 0; v < nVertex; v++) {
+            blossomBase[v] = v;
+        }
+        Arrays.fill(blossomBase, nVertex, 2 * nVertex, -1);
+        blossomEndps = new int[2 * nVertex][];
+        bestEdge = new int[2 * nVertex];
+        Arrays.fill(bestEdge, -1);
+        blossomBestEdges = new int[2 * nVertex][];
+        unusedBlossoms = new int[nVertex];
+        for (int i = 0; i < nVertex; i++) {
+            unusedBlossoms[i] = nVertex + i;
+        }
+        unusedBlossomCount = nVertex;
+        dualVar = new long[2 * nVertex];
+        Arrays.fill(dualVar, 0, nVertex, maxWeight);
+        allowEdge = new boolean[nEdge];
+        queue = new int[nVertex];
+    }
+
+    /**
+     * @return {@code mate[v]} is the vertex matched to {@code v}, or -1 if {@code v} is single
+     */
+    static int[] solve(int nVertex, int[] edgeFrom, int[] edgeTo, long[] edgeWeight, int nEdge, boolean maxCardinality) {
+        if (nVertex == 0) {
+            return new int[0];
+        }
+        if (nEdge == 0) {
+            int[] single = new int[nVertex];
+            Arrays.fill(single, -1);
+            return single;
+        }
+        return new MaxWeightMatching(nVertex, edgeFrom, edgeTo, edgeWeight, nEdge, maxCardinality).run();
+    }
+
+    private long slack(int k) {
+        return dualVar[edgeFrom[k]] + dualVar[edgeTo[k]] - 2 * edgeWeight[k];
+    }
+
+    private int leafCount(int b) {
+        if (b < nVertex) {
+            return 1;
+        }
+        int count = 0;
+        for (int t : blossomChilds[b]) {
+            count += leafCount(t);
+        }
+        return count;
+    }
+
+    private int collectLeaves(int b, int[] out, int pos) {
+        if (b < nVertex) {
+            out[pos] = b;
+            return pos + 1;
+        }
+        for (int t : blossomChilds[b]) {
+            pos = collectLeaves(t, out, pos);
+        }
+        return pos;
+    }
+
+    private int[] blossomLeaves(int b) {
+        int[] leaves = new int[leafCount(b)];
+        collectLeaves(b, leaves, 0);
+        return leaves;
+    }
+
+    private void assignLabel(int w, int t, int p) {
+        int b = inBlossom[w];
+        label[w] = label[b] = t;
+        labelEnd[w] = labelEnd[b] = p;
+        bestEdge[w] = bestEdge[b] = -1;
+        if (t == 1) {
+            for (int v : blossomLeaves(b)) {
+                push(v);
+            }
+        } else if (t == 2) {
+            int base = blossomBase[b];
+            assignLabel(endpoint[mate[base]], 1, mate[base] ^ 1);
+        }
+    }
+
+    private int scanBlossom(int v, int w) {
+        int[] path = new int[2 * nVertex];
+        int pathSize = 0;
+        int base = -1;
+        while (v != -1 || w != -1) {
+            int b = inBlossom[v];
+            if ((label[b] & 4) != 0) {
+                base = blossomBase[b];
+                break;
+            }
+            path[pathSize++] = b;
+            label[b] = 5;
+            if (labelEnd[b] == -1) {
+                v = -1;
+            } else {
+                v = endpoint[labelEnd[b]];
+                b = inBlossom[v];
+                v = endpoint[labelEnd[b]];
+            }
+            if (w != -1) {
+                int tmp = v;
+                v = w;
+                w = tmp;
+            }
+        }
+        for (int i = 0; i < pathSize; i++) {
+            label[path[i]] = 1;
+        }
+        return base;
+    }
+
+    private void addBlossom(int base, int k) {
+        int v = edgeFrom[k];
+        int w = edgeTo[k];
+        int bb = inBlossom[base];
+        int bv = inBlossom[v];
+        int bw = inBlossom[w];
+        int b = unusedBlossoms[--unusedBlossomCount];
+        blossomBase[b] = base;
+        blossomParent[b] = -1;
+        blossomParent[bb] = b;
+
+        int[] path = new int[2 * nVertex];
+        int[] endps = new int[2 * nVertex];
+        int size = 0;
+        while (bv != bb) {
+            blossomParent[bv] = b;
+            path[size] = bv;
+            endps[size] = labelEnd[bv];
+            size++;
+            v = endpoint[labelEnd[bv]];
+            bv = inBlossom[v];
+        }
+        path[size++] = bb;
+        reverse(path, size);
+        reverse(endps, size - 1);
+        endps[size - 1] = 2 * k;
+        int endpsSize = size;
+        while (bw != bb) {
+            blossomParent[bw] = b;
+            path[size++] = bw;
+            endps[endpsSize++] = labelEnd[bw] ^ 1;
+            w = endpoint[labelEnd[bw]];
+            bw = inBlossom[w];
+        }
+        blossomChilds[b] = Arrays.copyOf(path, size);
+        blossomEndps[b] = Arrays.copyOf(endps, endpsSize);
+
+        label[b] = 1;
+        labelEnd[b] = labelEnd[bb];
+        dualVar[b] = 0;
+        for (int leaf : blossomLeaves(b)) {
+            if (label[inBlossom[leaf]] == 2) {
+                push(leaf);
+            }
+            inBlossom[leaf] = b;
+        }
+
+        int[] bestEdgeTo = new int[2 * nVertex];
+        Arrays.fill(bestEdgeTo, -1);
+        for (int child : blossomChilds[b]) {
+            if (blossomBestEdges[child] == null) {
+                for (int leaf : blossomLeaves(child)) {
+                    for (int p : neighbEnd[leaf]) {
+                        considerBestEdge(p / 2, b, bestEdgeTo);
+                    }
+                }
+            } else {
+                for (int e : blossomBestEdges[child]) {
+                    considerBestEdge(e, b, bestEdgeTo);
+                }
+            }
+            blossomBestEdges[child] = null;
+            bestEdge[child] = -1;
+        }
+        int count = 0;
+        for (int e : bestEdgeTo) {
+            if (e != -1) {
+                count++;
+            }
+        }
+        int[] best = new int[count];
+        count = 0;
+        for (int e : bestEdgeTo) {
+            if (e != -1) {
+                best[count++] = e;
+            }
+        }
+        blossomBestEdges[b] = best;
+        bestEdge[b] = -1;
+        for (int e : best) {
+            if (bestEdge[b] == -1 || slack(e) < slack(bestEdge[b])) {
+                bestEdge[b] = e;
+            }
+        }
+    }
+
+    private void considerBestEdge(int k, int b, int[] bestEdgeTo) {
+        int j = edgeTo[k];
+        if (inBlossom[j] == b) {
+            j = edgeFrom[k];
+        }
+        int bj = inBlossom[j];
+        if (bj != b && label[bj] == 1 && (bestEdgeTo[bj] == -1 || slack(k) < slack(bestEdgeTo[bj]))) {
+            bestEdgeTo[bj] = k;
+        }
+    }
+
+    private void expandBlossom(int b, boolean endStage) {
+        for (int s : blossomChilds[b]) {
+            blossomParent[s] = -1;
+            if (s < nVertex) {
+                inBlossom[s] = s;
+            } else if (endStage && dualVar[s] == 0) {
+                expandBlossom(s, endStage);
+            } else {
+                for (int leaf : blossomLeaves(s)) {
+                    inBlossom[leaf] = s;
+                }
+            }
+        }
+
+        if (!endStage && label[b] == 2) {
+            int[] childs = blossomChilds[b];
+            int[] endps = blossomEndps[b];
+            int entryChild = inBlossom[endpoint[labelEnd[b] ^ 1]];
+            int j = indexOf(childs, entryChild);
+            int jStep;
+            int endpTrick;
+            if ((j & 1) != 0) {
+                j -= childs.length;
+                jStep = 1;
+                endpTrick = 0;
+            } else {
+                jStep = -1;
+                endpTrick = 1;
+            }
+            int p = labelEnd[b];
+            while (j != 0) {
+                label[endpoint[p ^ 1]] = 0;
+                label[endpoint[at(endps, j - endpTrick) ^ endpTrick ^ 1]] = 0;
+                assignLabel(endpoint[p ^ 1], 2, p);
+                allowEdge[at(endps, j - endpTrick) / 2] = true;
+                j += jStep;
+                p = at(endps, j - endpTrick) ^ endpTrick;
+                allowEdge[p / 2] = true;
+                j += jStep;
+            }
+            int bv = at(childs, j);
+            label[endpoint[p ^ 1]] = label[bv] = 2;
+            labelEnd[endpoint[p ^ 1]] = labelEnd[bv] = p;
+            bestEdge[bv] = -1;
+            j += jStep;
+            while (at(childs, j) != entryChild) {
+                bv = at(childs, j);
+                if (label[bv] == 1) {
+                    j += jStep;
+                    continue;
+                }
+                int labeled = -1;
+                for (int leaf : blossomLeaves(bv)) {
+                    if (label[leaf] != 0) {
+                        labeled = leaf;
+                        break;
+                    }
+                }
+                if (labeled != -1) {
+                    label[labeled] = 0;
+                    label[endpoint[mate[blossomBase[bv]]]] = 0;
+                    assignLabel(labeled, 2, labelEnd[labeled]);
+                }
+                j += jStep;
+            }
+        }
+
+        label[b] = labelEnd[b] = -1;
+        blossomChilds[b] = blossomEndps[b] = null;
+        blossomBase[b] = -1;
+        blossomBestEdges[b] = null;
+        bestEdge[b] = -1;
+        unusedBlossoms[unusedBlossomCount++] = b;
+    }
+
+    private void augmentBlossom(int b, int v) {
+        int t = v;
+        while (blossomParent[t] != b) {
+            t = blossomParent[t];
+        }
+        if (t >= nVertex) {
+            augmentBlossom(t, v);
+        }
+        int[] childs = blossomChilds[b];
+        int[] endps = blossomEndps[b];
+        int i = indexOf(childs, t);
+        int j = i;
+        int jStep;
+        int endpTrick;
+        if ((i & 1) != 0) {
+            j -= childs.length;
+            jStep = 1;
+            endpTrick = 0;
+        } else {
+            jStep = -1;
+            endpTrick = 1;
+        }
+        while (j != 0) {
+            j += jStep;
+            t = at(childs, j);
+            int p = at(endps, j - endpTrick) ^ endpTrick;
+            if (t >= nVertex) {
+                augmentBlossom(t, endpoint[p]);
+            }
+            j += jStep;
+            t = at(childs, j);
+            if (t >= nVertex) {
+                augmentBlossom(t, endpoint[p ^ 1]);
+            }
+            mate[endpoint[p]] = p ^ 1;
+            mate[endpoint[p ^ 1]] = p;
+        }
+        blossomChilds[b] = rotate(childs, i);
+        blossomEndps[b] = rotate(endps, i);
+        blossomBase[b] = blossomBase[blossomChilds[b][0]];
+    }
+
+    private void augmentMatching(int k) {
+        for (int side = 0; side < 2; side++) {
+            int s = side == 0 ? edgeFrom[k] : edgeTo[k];
+            int p = side == 0 ? 2 * k + 1 : 2 * k;
+            while (true) {
+                int bs = inBlossom[s];
+                if (bs >= nVertex) {
+                    augmentBlossom(bs, s);
+                }
+                mate[s] = p;
+                if (labelEnd[bs] == -1) {
+                    break;
+                }
+                int t = endpoint[labelEnd[bs]];
+                int bt = inBlossom[t];
+                s = endpoint[labelEnd[bt]];
+                int j = endpoint[labelEnd[bt] ^ 1];
+                if (bt >= nVertex) {
+                    augmentBlossom(bt, j);
+                }
+                mate[j] = labelEnd[bt];
+                p = labelEnd[bt] ^ 1;
+            }
+        }
+    }
+
+    private int[] run() {
+        for (int stage = 0; stage < nVertex; stage++) {
+            Arrays.fill(label, 0);
+            Arrays.fill(bestEdge, -1);
+            Arrays.fill(blossomBestEdges, nVertex, 2 * nVertex, null);
+            Arrays.fill(allowEdge, false);
+            queueSize = 0;
+
+            for (int v = 0; v < nVertex; v++) {
+                if (mate[v] == -1 && label[inBlossom[v]] == 0) {
+                    assignLabel(v, 1, -1);
+                }
+            }
+
+            boolean augmented = false;
+            while (true) {
+                while (queueSize > 0 && !augmented) {
+                    int v = queue[--queueSize];
+                    for (int p : neighbEnd[v]) {
+                        int k = p / 2;
+                        int w = endpoint[p];
+                        if (inBlossom[v] == inBlossom[w]) {
+                            continue;
+                        }
+                        long kSlack = 0;
+                        if (!allowEdge[k]) {
+                            kSlack = slack(k);
+                            if (kSlack <= 0) {
+                                allowEdge[k] = true;
+                            }
+                        }
+                        if (allowEdge[k]) {
+                            if (label[inBlossom[w]] == 0) {
+                                assignLabel(w, 2, p ^ 1);
+                            } else if (label[inBlossom[w]] == 1) {
+                                int base = scanBlossom(v, w);
+                                if (base >= 0) {
+                                    addBlossom(base, k);
+                                } else {
+                                    augmentMatching(k);
+                                    augmented = true;
+                                    break;
+                                }
+                            } else if (label[w] == 0) {
+                                label[w] = 2;
+                                labelEnd[w] = p ^ 1;
+                            }
+                        } else if (label[inBlossom[w]] == 1) {
+                            int b = inBlossom[v];
+                            if (bestEdge[b] == -1 || kSlack < slack(bestEdge[b])) {
+                                bestEdge[b] = k;
+                            }
+                        } else if (label[w] == 0) {
+                            if (bestEdge[w] == -1 || kSlack < slack(bestEdge[w])) {
+                                bestEdge[w] = k;
+                            }
+                        }
+                    }
+                }
+                if (augmented) {
+                    break;
+                }
+
+                int deltaType = -1;
+                long delta = 0;
+                int deltaEdge = -1;
+                int deltaBlossom = -1;
+
+                if (!maxCardinality) {
+                    deltaType = 1;
+                    delta = minVertexDual();
+                }
+                for (int v = 0; v < nVertex; v++) {
+                    if (label[inBlossom[v]] == 0 && bestEdge[v] != -1) {
+                        long d = slack(bestEdge[v]);
+                        if (deltaType == -1 || d < delta) {
+                            delta = d;
+                            deltaType = 2;
+                            deltaEdge = bestEdge[v];
+                        }
+                    }
+                }
+                for (int b = 0; b < 2 * nVertex; b++) {
+                    if (blossomParent[b] == -1 && label[b] == 1 && bestEdge[b] != -1) {
+                        long d = slack(bestEdge[b]) / 2;
+                        if (deltaType == -1 || d < delta) {
+                            delta = d;
+                            deltaType = 3;
+                            deltaEdge = bestEdge[b];
+                        }
+                    }
+                }
+                for (int b = nVertex; b < 2 * nVertex; b++) {
+                    if (blossomBase[b] >= 0 && blossomParent[b] == -1 && label[b] == 2
+                            && (deltaType == -1 || dualVar[b] < delta)) {
+                        delta = dualVar[b];
+                        deltaType = 4;
+                        deltaBlossom = b;
+                    }
+                }
+                if (deltaType == -1) {
+                    deltaType = 1;
+                    delta = Math.max(0, minVertexDual());
+                }
+
+                for (int v = 0; v < nVertex; v++) {
+                    if (label[inBlossom[v]] == 1) {
+                        dualVar[v] -= delta;
+                    } else if (label[inBlossom[v]] == 2) {
+                        dualVar[v] += delta;
+                    }
+                }
+                for (int b = nVertex; b < 2 * nVertex; b++) {
+                    if (blossomBase[b] >= 0 && blossomParent[b] == -1) {
+                        if (label[b] == 1) {
+                            dualVar[b] += delta;
+                        } else if (label[b] == 2) {
+                            dualVar[b] -= delta;
+                        }
+                    }
+                }
+
+                if (deltaType == 1) {
+                    break;
+                } else if (deltaType == 2) {
+                    allowEdge[deltaEdge] = true;
+                    int i = edgeFrom[deltaEdge];
+                    if (label[inBlossom[i]] == 0) {
+                        i = edgeTo[deltaEdge];
+                    }
+                    push(i);
+                } else if (deltaType == 3) {
+                    allowEdge[deltaEdge] = true;
+                    push(edgeFrom[deltaEdge]);
+                } else {
+                    expandBlossom(deltaBlossom, false);
+                }
+            }
+
+            if (!augmented) {
+                break;
+            }
+
+            for (int b = nVertex; b < 2 * nVertex; b++) {
+                if (blossomParent[b] == -1 && blossomBase[b] >= 0 && label[b] == 1 && dualVar[b] == 0) {
+                    expandBlossom(b, true);
+                }
+            }
+        }
+
+        int[] result = new int[nVertex];
+        for (int v = 0; v < nVertex; v++) {
+            result[v] = mate[v] >= 0 ? endpoint[mate[v]] : -1;
+        }
+        return result;
+    }
+
+    private void push(int v) {
+        if (queueSize == queue.length) {
+            queue = Arrays.copyOf(queue, queue.length * 2);
+        }
+        queue[queueSize++] = v;
+    }
+
+    private long minVertexDual() {
+        long min = dualVar[0];
+        for (int v = 1; v < nVertex; v++) {
+            min = Math.min(min, dualVar[v]);
+        }
+        return min;
+    }
+
+    private static int at(int[] array, int index) {
+        int n = array.length;
+        return array[((index % n) + n) % n];
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] rotate(int[] array, int shift) {
+        int[] rotated = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            rotated[i] = array[(i + shift) % array.length];
+        }
+        return rotated;
+    }
+
+    private static void reverse(int[] array, int size) {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+}
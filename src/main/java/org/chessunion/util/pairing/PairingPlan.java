@@ -0,0 +1,12 @@
+package org.chessunion.util.pairing;
+
+/**
+ * Result of pairing a round, in player ids. {@code byePlayerId} is {@link #NO_BYE} for even fields.
+ */
+public record PairingPlan(int byePlayerId, int[] whitePlayerIds, int[] blackPlayerIds) {
+    public static final int NO_BYE = -1;
+
+    public int boards() {
+        return whitePlayerIds.length;
+    }
+}
@@ -0,0 +1,267 @@
+package org.chessunion.util.pairing;
+
+import java.util.Arrays;
+
+/**
+ * Primitive snapshot of a Swiss field taken before pairing a round. Players are addressed by index
+ * in standings order (score, then rating, best first); past opponents are a bitset adjacency matrix
+ * and colours are byte-coded, so pairing never touches entities, boxed values or strings.
+ */
+public final class PairingState {
+    public static final byte NO_COLOUR = 0;
+    public static final byte WHITE = 1;
+    public static final byte BLACK = 2;
+
+    private final int size;
+    private final int words;
+    private final int[] playerIds;
+    private final int[] scoreHalfPoints;
+    private final double[] ratings;
+    private final byte[] colourBalance;
+    private final byte[] lastColour;
+    private final byte[] secondLastColour;
+    private final boolean[] hadBye;
+    private final long[] opponents;
+
+    private PairingState(int size) {
+        this.size = size;
+        this.words = (size + 63) >>> 6;
+        this.playerIds = new int[size];
+        this.scoreHalfPoints = new int[size];
+        this.ratings = new double[size];
+        this.colourBalance = new byte[size];
+        this.lastColour = new byte[size];
+        this.secondLastColour = new byte[size];
+        this.hadBye = new boolean[size];
+        this.opponents = new long[size * words];
+    }
+
+    public static Builder builder(int expectedPlayers) {
+        return new Builder(expectedPlayers);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int playerId(int index) {
+        return playerIds[index];
+    }
+
+    public int scoreHalfPoints(int index) {
+        return scoreHalfPoints[index];
+    }
+
+    public int colourBalance(int index) {
+        return colourBalance[index];
+    }
+
+    public boolean hadBye(int index) {
+        return hadBye[index];
+    }
+
+    public boolean havePlayed(int i, int j) {
+        return (opponents[i * words + (j >>> 6)] & (1L << j)) != 0;
+    }
+
+    /**
+     * Colour the player must not receive (after two equal colours in a row), or {@link #NO_COLOUR}.
+     */
+    public byte forbiddenColour(int index) {
+        return lastColour[index] != NO_COLOUR && lastColour[index] == secondLastColour[index] ? lastColour[index] : NO_COLOUR;
+    }
+
+    /**
+     * Absolute colour rules: no rematch, no pair of players both at a colour balance of ±2, and no
+     * third equal colour in a row for either player.
+     */
+    public boolean canPlay(int i, int j) {
+        if (havePlayed(i, j)) {
+            return false;
+        }
+        int balanceI = colourBalance[i];
+        int balanceJ = colourBalance[j];
+        if (balanceI == balanceJ && (balanceI == 2 || balanceI == -2)) {
+            return false;
+        }
+        byte forbiddenI = forbiddenColour(i);
+        byte forbiddenJ = forbiddenColour(j);
+        if (forbiddenI != NO_COLOUR && forbiddenI == forbiddenJ) {
+            return false;
+        }
+        return fitsBalance(forbiddenI, balanceJ) && fitsBalance(forbiddenJ, balanceI);
+    }
+
+    // если один игрок обязан сменить цвет, его соперник получает этот цвет и не должен уйти в дисбаланс
+    private static boolean fitsBalance(byte forbidden, int opponentBalance) {
+        return (forbidden != BLACK || opponentBalance != 2) && (forbidden != WHITE || opponentBalance != -2);
+    }
+
+    /**
+     * @return true if {@code i} should play white against {@code j}
+     */
+    public boolean whiteFirst(int i, int j) {
+        byte forbiddenI = forbiddenColour(i);
+        if (forbiddenI != NO_COLOUR) {
+            return forbiddenI == BLACK;
+        }
+        byte forbiddenJ = forbiddenColour(j);
+        if (forbiddenJ != NO_COLOUR) {
+            return forbiddenJ == WHITE;
+        }
+        return colourBalance[i] > colourBalance[j];
+    }
+
+    /**
+     * Hash of the whole snapshot, for looking up plans prepared in advance; confirm with {@link #sameAs}.
+     */
+    public long contentHash() {
+        long hash = size;
+        hash = 31 * hash + Arrays.hashCode(playerIds);
+        hash = 31 * hash + Arrays.hashCode(scoreHalfPoints);
+        hash = 31 * hash + Arrays.hashCode(ratings);
+        hash = 31 * hash + Arrays.hashCode(colourBalance);
+        hash = 31 * hash + Arrays.hashCode(lastColour);
+        hash = 31 * hash + Arrays.hashCode(secondLastColour);
+        hash = 31 * hash + Arrays.hashCode(hadBye);
+        return 31 * hash + Arrays.hashCode(opponents);
+    }
+
+    /**
+     * True if both snapshots hold the same field; the pairing engine then produces the same plan.
+     */
+    public boolean sameAs(PairingState other) {
+        return size == other.size
+                && Arrays.equals(playerIds, other.playerIds)
+                && Arrays.equals(scoreHalfPoints, other.scoreHalfPoints)
+                && Arrays.equals(ratings, other.ratings)
+                && Arrays.equals(colourBalance, other.colourBalance)
+                && Arrays.equals(lastColour, other.lastColour)
+                && Arrays.equals(secondLastColour, other.secondLastColour)
+                && Arrays.equals(hadBye, other.hadBye)
+                && Arrays.equals(opponents, other.opponents);
+    }
+
+    public static final class Builder {
+        private int count;
+        private int[] ids;
+        private double[] scores;
+        private double[] ratings;
+        private int[] balances;
+        private byte[] last;
+        private byte[] secondLast;
+        private boolean[] byes;
+        private int gameCount;
+        private int[] whiteIds;
+        private int[] blackIds;
+
+        private Builder(int expectedPlayers) {
+            int capacity = Math.max(expectedPlayers, 2);
+            ids = new int[capacity];
+            scores = new double[capacity];
+            ratings = new double[capacity];
+            balances = new int[capacity];
+            last = new byte[capacity];
+            secondLast = new byte[capacity];
+            byes = new boolean[capacity];
+            whiteIds = new int[capacity * 4];
+            blackIds = new int[capacity * 4];
+        }
+
+        public Builder player(int id, double score, double rating, int colourBalance, String colourHistory, boolean hadBye) {
+            if (count == ids.length) {
+                int capacity = count * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                balances = Arrays.copyOf(balances, capacity);
+                last = Arrays.copyOf(last, capacity);
+                secondLast = Arrays.copyOf(secondLast, capacity);
+                byes = Arrays.copyOf(byes, capacity);
+            }
+            ids[count] = id;
+            scores[count] = score;
+            ratings[count] = rating;
+            balances[count] = colourBalance;
+            int length = colourHistory == null ? 0 : colourHistory.length();
+            last[count] = length > 0 ? colourCode(colourHistory.charAt(length - 1)) : NO_COLOUR;
+            secondLast[count] = length > 1 ? colourCode(colourHistory.charAt(length - 2)) : NO_COLOUR;
+            byes[count] = hadBye;
+            count++;
+            return this;
+        }
+
+        public Builder game(int whitePlayerId, int blackPlayerId) {
+            if (gameCount == whiteIds.length) {
+                whiteIds = Arrays.copyOf(whiteIds, gameCount * 2);
+                blackIds = Arrays.copyOf(blackIds, gameCount * 2);
+            }
+            whiteIds[gameCount] = whitePlayerId;
+            blackIds[gameCount] = blackPlayerId;
+            gameCount++;
+            return this;
+        }
+
+        public PairingState build() {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int scoreCompare = Double.compare(scores[b], scores[a]);
+                return scoreCompare != 0 ? scoreCompare : Double.compare(ratings[b], ratings[a]);
+            });
+
+            PairingState state = new PairingState(count);
+            long[] idToIndex = new long[count];
+            for (int index = 0; index < count; index++) {
+                int source = order[index];
+                state.playerIds[index] = ids[source];
+                state.scoreHalfPoints[index] = (int) Math.round(scores[source] * 2);
+                state.ratings[index] = ratings[source];
+                state.colourBalance[index] = (byte) balances[source];
+                state.lastColour[index] = last[source];
+                state.secondLastColour[index] = secondLast[source];
+                state.hadBye[index] = byes[source];
+                idToIndex[index] = ((long) ids[source] << 32) | index;
+            }
+            Arrays.sort(idToIndex);
+
+            for (int g = 0; g < gameCount; g++) {
+                int white = indexOf(idToIndex, whiteIds[g]);
+                int black = indexOf(idToIndex, blackIds[g]);
+                if (white < 0 || black < 0) {
+                    continue;
+                }
+                state.opponents[white * state.words + (black >>> 6)] |= 1L << black;
+                state.opponents[black * state.words + (white >>> 6)] |= 1L << white;
+            }
+            return state;
+        }
+
+        private static int indexOf(long[] idToIndex, int id) {
+            int low = 0;
+            int high = idToIndex.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = (int) (idToIndex[mid] >> 32);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return (int) idToIndex[mid];
+                }
+            }
+            return -1;
+        }
+
+        private static byte colourCode(char colour) {
+            return switch (colour) {
+                case 'w', 'W' -> WHITE;
+                case 'b', 'B' -> BLACK;
+                default -> NO_COLOUR;
+            };
+        }
+    }
+}
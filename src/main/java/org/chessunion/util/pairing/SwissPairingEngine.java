@@ -0,0 +1,13 @@
+package org.chessunion.util.pairing;
+
+import java.util.Optional;
+
+public interface SwissPairingEngine {
+
+    /**
+     * Pairs the whole field of a snapshot, allocating the bye for odd fields and the colours of every board.
+     *
+     * @return the plan, or empty if no pairing satisfies rematch and colour rules
+     */
+    Optional<PairingPlan> pair(PairingState state);
+}
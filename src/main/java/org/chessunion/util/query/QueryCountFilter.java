@@ -0,0 +1,75 @@
+package org.chessunion.util.query;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Per-request db.request.statements / db.request.entities / db.request.collections summaries, tagged like
+ * http.server.requests by method and uri pattern. A request with more statements than
+ * {@code db.query-count.warn-threshold} is logged with its breakdown.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+    private static final int BREAKDOWN_LIMIT = 5;
+
+    private final MeterRegistry meterRegistry;
+    private final int warnThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${db.query-count.warn-threshold:30}") int warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestQueryStats.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            record(request, RequestQueryStats.stop());
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStats stats) {
+        // шаблон пути известен только после выбора обработчика, иначе одна метка на каждый id
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        summary("db.request.statements", "SQL statements prepared by Hibernate per request", method, uri).record(stats.statementCount());
+        summary("db.request.entities", "Entities loaded per request", method, uri).record(stats.entityCount());
+        summary("db.request.collections", "Lazy collections initialised per request", method, uri).record(stats.collectionCount());
+
+        if (stats.statementCount() > warnThreshold) {
+            log.warn("Too many queries: {} {} ({}): {} statements, {} entities, {} collections\n{}", method, uri,
+                    request.getRequestURI(), stats.statementCount(), stats.entityCount(), stats.collectionCount(),
+                    stats.breakdown(BREAKDOWN_LIMIT));
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
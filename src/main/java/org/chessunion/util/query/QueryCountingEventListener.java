@@ -0,0 +1,23 @@
+package org.chessunion.util.query;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * Counts loaded entities and initialised lazy collections into the {@link RequestQueryStats} of the current request.
+ */
+public class QueryCountingEventListener implements PostLoadEventListener, InitializeCollectionEventListener {
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestQueryStats.entityLoaded(event.getPersister().getEntityName());
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        RequestQueryStats.collectionFetched(event.getCollection().getRole());
+    }
+}
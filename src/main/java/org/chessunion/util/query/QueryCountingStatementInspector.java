@@ -0,0 +1,16 @@
+package org.chessunion.util.query;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares into the {@link RequestQueryStats} of the current request.
+ * Statements issued through JdbcTemplate bypass Hibernate and are not seen here.
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueryStats.statement(sql);
+        return sql;
+    }
+}
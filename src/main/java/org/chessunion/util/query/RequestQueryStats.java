@@ -0,0 +1,92 @@
+package org.chessunion.util.query;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * What Hibernate did on behalf of one HTTP request: SQL statements, entities loaded and lazy collections
+ * initialised, each with a breakdown by statement text, entity name and collection role. Bound to the
+ * request thread between {@link #start()} and {@link #stop()}; work outside a request is not counted.
+ */
+public final class RequestQueryStats {
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SQL_LENGTH = 200;
+
+    private final Map<String, Integer> statements = new HashMap<>();
+    private final Map<String, Integer> entities = new HashMap<>();
+    private final Map<String, Integer> collections = new HashMap<>();
+    private int statementCount;
+    private int entityCount;
+    private int collectionCount;
+
+    private RequestQueryStats() {
+    }
+
+    public static void start() {
+        CURRENT.set(new RequestQueryStats());
+    }
+
+    public static RequestQueryStats stop() {
+        RequestQueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static void statement(String sql) {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statementCount++;
+            // параметры в тексте — это "?", поэтому N+1 собирается в одну строку разбивки
+            String key = sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "..." : sql;
+            stats.statements.merge(key, 1, Integer::sum);
+        }
+    }
+
+    static void entityLoaded(String entityName) {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entityCount++;
+            stats.entities.merge(entityName, 1, Integer::sum);
+        }
+    }
+
+    static void collectionFetched(String role) {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.collectionCount++;
+            stats.collections.merge(role, 1, Integer::sum);
+        }
+    }
+
+    public int statementCount() {
+        return statementCount;
+    }
+
+    public int entityCount() {
+        return entityCount;
+    }
+
+    public int collectionCount() {
+        return collectionCount;
+    }
+
+    /**
+     * Most frequent statements, entities and collections first, {@code limit} of each.
+     */
+    public String breakdown(int limit) {
+        return "statements:" + top(statements, limit) + "\nentities:" + top(entities, limit) + "\ncollections:" + top(collections, limit);
+    }
+
+    private static String top(Map<String, Integer> counts, int limit) {
+        if (counts.isEmpty()) {
+            return " -";
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> "\n  " + entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining());
+    }
+}
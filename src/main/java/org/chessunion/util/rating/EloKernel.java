@@ -0,0 +1,67 @@
+package org.chessunion.util.rating;
+
+/**
+ * Elo on primitive doubles. The expected score comes from a table over integer rating differences with
+ * linear interpolation between neighbours (error below 1e-6); differences outside the table are computed directly.
+ */
+public final class EloKernel {
+    public static final double RATING_FLOOR = 900;
+
+    private static final int MAX_DIFFERENCE = 1000;
+    // EXPECTED[d + MAX_DIFFERENCE] — ожидаемый результат при рейтинге соперника выше на d
+    private static final double[] EXPECTED = new double[2 * MAX_DIFFERENCE + 2];
+
+    static {
+        for (int i = 0; i < EXPECTED.length; i++) {
+            EXPECTED[i] = exactExpectedScore(i - MAX_DIFFERENCE);
+        }
+    }
+
+    /**
+     * New ratings of both players of one game; owned by the caller and reused between games.
+     */
+    public static final class Result {
+        public double whiteRating;
+        public double blackRating;
+    }
+
+    private EloKernel() {
+    }
+
+    public static void rate(double whiteRating, int whiteMatches, double blackRating, int blackMatches,
+                            double whiteResult, Result result) {
+        result.whiteRating = newRating(whiteRating, whiteMatches, blackRating, whiteResult);
+        result.blackRating = newRating(blackRating, blackMatches, whiteRating, 1 - whiteResult);
+    }
+
+    /**
+     * @param matches games played before this one
+     */
+    public static double newRating(double rating, int matches, double opponentRating, double score) {
+        return Math.max(RATING_FLOOR, rating + kFactor(matches, rating) * (score - expectedScore(rating, opponentRating)));
+    }
+
+    /**
+     * 40 for the first 30 games, then 20, and 10 from 2400 up.
+     */
+    public static int kFactor(int matches, double rating) {
+        if (matches <= 30) {
+            return 40;
+        }
+        return rating < 2400 ? 20 : 10;
+    }
+
+    public static double expectedScore(double rating, double opponentRating) {
+        double position = opponentRating - rating + MAX_DIFFERENCE;
+        if (!(position >= 0 && position < 2 * MAX_DIFFERENCE)) {
+            return exactExpectedScore(opponentRating - rating);
+        }
+        int index = (int) position;
+        double fraction = position - index;
+        return EXPECTED[index] + (EXPECTED[index + 1] - EXPECTED[index]) * fraction;
+    }
+
+    static double exactExpectedScore(double difference) {
+        return 1 / (1 + Math.pow(10, difference / 400));
+    }
+}
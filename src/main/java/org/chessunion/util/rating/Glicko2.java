@@ -0,0 +1,109 @@
+package org.chessunion.util.rating;
+
+/**
+ * Glicko-2 (Glickman, "Example of the Glicko-2 system"). A rating period is rated in one pass over primitive
+ * arrays: games only add to per-player sums, then every player of the period is updated once.
+ * Players without games in the period keep their rating, their deviation grows.
+ */
+public class Glicko2 {
+    public static final double DEFAULT_DEVIATION = 350;
+    public static final double DEFAULT_VOLATILITY = 0.06;
+
+    private static final double SCALE = 173.7178;
+    private static final double CENTER = 1500;
+    private static final double EPSILON = 0.000001;
+
+    private final double tau;
+
+    public Glicko2(double tau) {
+        this.tau = tau;
+    }
+
+    /**
+     * Updates rating, deviation and volatility of all players in place.
+     *
+     * @param first      index of the first player of each game
+     * @param second     index of the second player of each game
+     * @param firstScore points of the first player: 1, 0.5 or 0
+     */
+    public void ratePeriod(double[] rating, double[] deviation, double[] volatility,
+                           int[] first, int[] second, double[] firstScore, int games) {
+        int players = rating.length;
+        double[] mu = new double[players];
+        double[] phi = new double[players];
+        double[] g = new double[players];
+        for (int i = 0; i < players; i++) {
+            mu[i] = (rating[i] - CENTER) / SCALE;
+            phi[i] = deviation[i] / SCALE;
+            g[i] = 1 / Math.sqrt(1 + 3 * phi[i] * phi[i] / (Math.PI * Math.PI));
+        }
+
+        // v^-1 и сумма g(φj)(s - E) по партиям игрока
+        double[] inverseVariance = new double[players];
+        double[] improvement = new double[players];
+        for (int k = 0; k < games; k++) {
+            int a = first[k];
+            int b = second[k];
+            double expectedA = 1 / (1 + Math.exp(-g[b] * (mu[a] - mu[b])));
+            double expectedB = 1 / (1 + Math.exp(-g[a] * (mu[b] - mu[a])));
+            inverseVariance[a] += g[b] * g[b] * expectedA * (1 - expectedA);
+            inverseVariance[b] += g[a] * g[a] * expectedB * (1 - expectedB);
+            improvement[a] += g[b] * (firstScore[k] - expectedA);
+            improvement[b] += g[a] * (1 - firstScore[k] - expectedB);
+        }
+
+        for (int i = 0; i < players; i++) {
+            if (inverseVariance[i] == 0) {
+                phi[i] = Math.sqrt(phi[i] * phi[i] + volatility[i] * volatility[i]);
+                deviation[i] = phi[i] * SCALE;
+                continue;
+            }
+            double v = 1 / inverseVariance[i];
+            double delta = v * improvement[i];
+            double sigma = newVolatility(phi[i], volatility[i], v, delta);
+            double phiStar = Math.sqrt(phi[i] * phi[i] + sigma * sigma);
+            double newPhi = 1 / Math.sqrt(1 / (phiStar * phiStar) + 1 / v);
+
+            rating[i] = (mu[i] + newPhi * newPhi * improvement[i]) * SCALE + CENTER;
+            deviation[i] = newPhi * SCALE;
+            volatility[i] = sigma;
+        }
+    }
+
+    // шаг 5: корень f(x) = 0 методом Иллинойса
+    private double newVolatility(double phi, double sigma, double v, double delta) {
+        double a = Math.log(sigma * sigma);
+        double lower = a;
+        double upper;
+        if (delta * delta > phi * phi + v) {
+            upper = Math.log(delta * delta - phi * phi - v);
+        } else {
+            int k = 1;
+            while (f(a - k * tau, a, phi, v, delta) < 0) {
+                k++;
+            }
+            upper = a - k * tau;
+        }
+        double fLower = f(lower, a, phi, v, delta);
+        double fUpper = f(upper, a, phi, v, delta);
+        while (Math.abs(upper - lower) > EPSILON) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = f(c, a, phi, v, delta);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower = fLower / 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    private double f(double x, double a, double phi, double v, double delta) {
+        double ex = Math.exp(x);
+        double denominator = phi * phi + v + ex;
+        return ex * (delta * delta - phi * phi - v - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+    }
+}
@@ -0,0 +1,33 @@
+package org.chessunion.util.rating;
+
+import org.chessunion.entity.Match;
+import org.chessunion.entity.Player;
+import org.chessunion.exception.MatchHasNotResultException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-game part of a Glicko-2 tournament: the game is only counted. Ratings change when the round is over
+ * and {@link org.chessunion.service.RatingPeriodService} rates it as one period.
+ */
+@Component
+public class Glicko2RatingCalculator implements RatingCalculator {
+
+    @Override
+    public Match calculate(Match match) {
+        if (match.getResult() == null) {
+            throw new MatchHasNotResultException("Glicko2RatingCalculator.calculate");
+        }
+        Player playerWhite = new Player(match.getWhitePlayer());
+        Player playerBlack = new Player(match.getBlackPlayer());
+        apply(playerWhite, playerBlack, match.getResult());
+
+        match.setWhitePlayer(playerWhite);
+        match.setBlackPlayer(playerBlack);
+        return match;
+    }
+
+    @Override
+    public void apply(Player white, Player black, double whiteResult) {
+        RatingCalculator.countGame(white, black, whiteResult);
+    }
+}
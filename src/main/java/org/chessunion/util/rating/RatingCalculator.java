@@ -1,7 +1,35 @@
 package org.chessunion.util.rating;
 
 import org.chessunion.entity.Match;
+import org.chessunion.entity.Player;
 
 public interface RatingCalculator {
+    /**
+     * Result of the match on copies of its players; the players of the match are replaced by the copies.
+     */
     Match calculate(Match match);
+
+    /**
+     * Same as {@link #calculate}, applied to the given players in place.
+     */
+    void apply(Player white, Player black, double whiteResult);
+
+    /**
+     * Game, win, draw and loss counters of both players.
+     */
+    static void countGame(Player white, Player black, double whiteResult) {
+        white.setAmountOfMatches(white.getAmountOfMatches() + 1);
+        black.setAmountOfMatches(black.getAmountOfMatches() + 1);
+
+        if (whiteResult == 1) {
+            white.setAmountOfWins(white.getAmountOfWins() + 1);
+            black.setAmountOfLosses(black.getAmountOfLosses() + 1);
+        } else if (whiteResult == 0.5) {
+            white.setAmountOfDraws(white.getAmountOfDraws() + 1);
+            black.setAmountOfDraws(black.getAmountOfDraws() + 1);
+        } else {
+            white.setAmountOfLosses(white.getAmountOfLosses() + 1);
+            black.setAmountOfWins(black.getAmountOfWins() + 1);
+        }
+    }
 }
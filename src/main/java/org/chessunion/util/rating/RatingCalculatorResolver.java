@@ -0,0 +1,16 @@
+package org.chessunion.util.rating;
+
+import lombok.RequiredArgsConstructor;
+import org.chessunion.entity.Tournament;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RatingCalculatorResolver {
+    private final SimpleRatingCalculator simpleRatingCalculator;
+    private final Glicko2RatingCalculator glicko2RatingCalculator;
+
+    public RatingCalculator forTournament(Tournament tournament) {
+        return tournament.getRatingSystem() == Tournament.RatingSystem.GLICKO2 ? glicko2RatingCalculator : simpleRatingCalculator;
+    }
+}
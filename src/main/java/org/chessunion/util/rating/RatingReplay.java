@@ -0,0 +1,236 @@
+package org.chessunion.util.rating;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Replays rated games over primitive arrays indexed by user id, with the rules of {@link SimpleRatingCalculator} ({@link EloKernel}).
+ * Games are added in chronological order. {@link #run} splits them into waves: a game goes to the wave after
+ * the last wave of either of its players, so a wave never has a player twice and every player meets
+ * their games in the original order. Games of one wave touch disjoint array cells and are applied in
+ * parallel once the wave is large enough; the result equals the sequential replay.
+ * <p>
+ * A game added as not rated only counts for the players' counters (and so for the K-factor of their later
+ * games): Glicko-2 games keep their own rating and must not move the Elo one.
+ */
+public class RatingReplay {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    private final double[] rating;
+    private final int[] matches;
+    private final int[] wins;
+    private final int[] draws;
+    private final int[] losses;
+    private final boolean[] played;
+    private final boolean[] ratedUser;
+
+    private final int[] whiteUser;
+    private final int[] blackUser;
+    private final double[] result;
+    private final boolean[] rated;
+    private int games;
+
+    // по два элемента на партию: 2 * game + WHITE / BLACK
+    private final double[] ratingChange;
+    private final double[] ratingAfter;
+    private final int[] matchesAfter;
+    private final int[] winsAfter;
+    private final int[] drawsAfter;
+    private final int[] lossesAfter;
+
+    public RatingReplay(int maxUserId, int capacity, double initialRating) {
+        rating = new double[maxUserId + 1];
+        Arrays.fill(rating, initialRating);
+        matches = new int[maxUserId + 1];
+        wins = new int[maxUserId + 1];
+        draws = new int[maxUserId + 1];
+        losses = new int[maxUserId + 1];
+        played = new boolean[maxUserId + 1];
+        ratedUser = new boolean[maxUserId + 1];
+
+        whiteUser = new int[capacity];
+        blackUser = new int[capacity];
+        result = new double[capacity];
+        rated = new boolean[capacity];
+        ratingChange = new double[capacity * 2];
+        ratingAfter = new double[capacity * 2];
+        matchesAfter = new int[capacity * 2];
+        winsAfter = new int[capacity * 2];
+        drawsAfter = new int[capacity * 2];
+        lossesAfter = new int[capacity * 2];
+    }
+
+    /**
+     * @return index of the game
+     */
+    public int addGame(int whiteUserId, int blackUserId, double whiteResult) {
+        return addGame(whiteUserId, blackUserId, whiteResult, true);
+    }
+
+    /**
+     * @param ratingChanges false for a game that only counts
+     * @return index of the game
+     */
+    public int addGame(int whiteUserId, int blackUserId, double whiteResult, boolean ratingChanges) {
+        whiteUser[games] = whiteUserId;
+        blackUser[games] = blackUserId;
+        result[games] = whiteResult;
+        rated[games] = ratingChanges;
+        played[whiteUserId] = true;
+        played[blackUserId] = true;
+        if (ratingChanges) {
+            ratedUser[whiteUserId] = true;
+            ratedUser[blackUserId] = true;
+        }
+        return games++;
+    }
+
+    /**
+     * @param parallelThreshold smallest wave that is applied in parallel
+     * @return number of waves
+     */
+    public int run(int parallelThreshold) {
+        int[] wave = new int[games];
+        int[] lastWave = new int[rating.length];
+        int waves = 0;
+        for (int game = 0; game < games; game++) {
+            wave[game] = Math.max(lastWave[whiteUser[game]], lastWave[blackUser[game]]);
+            lastWave[whiteUser[game]] = wave[game] + 1;
+            lastWave[blackUser[game]] = wave[game] + 1;
+            waves = Math.max(waves, wave[game] + 1);
+        }
+
+        // сортировка подсчётом: партии волны подряд, внутри волны — в исходном порядке
+        int[] start = new int[waves + 1];
+        for (int game = 0; game < games; game++) {
+            start[wave[game] + 1]++;
+        }
+        for (int w = 0; w < waves; w++) {
+            start[w + 1] += start[w];
+        }
+        int[] order = new int[games];
+        int[] next = Arrays.copyOf(start, waves);
+        for (int game = 0; game < games; game++) {
+            order[next[wave[game]]++] = game;
+        }
+
+        for (int w = 0; w < waves; w++) {
+            int from = start[w];
+            int to = start[w + 1];
+            if (to - from >= parallelThreshold) {
+                IntStream.range(from, to).parallel().forEach(i -> apply(order[i]));
+            } else {
+                for (int i = from; i < to; i++) {
+                    apply(order[i]);
+                }
+            }
+        }
+        return waves;
+    }
+
+    private void apply(int game) {
+        int white = whiteUser[game];
+        int black = blackUser[game];
+        double whiteRating = rating[white];
+        double blackRating = rating[black];
+        double whiteResult = result[game];
+
+        if (rated[game]) {
+            rating[white] = EloKernel.newRating(whiteRating, matches[white], blackRating, whiteResult);
+            rating[black] = EloKernel.newRating(blackRating, matches[black], whiteRating, Math.abs(whiteResult - 1));
+        }
+
+        matches[white]++;
+        matches[black]++;
+        if (whiteResult == 1) {
+            wins[white]++;
+            losses[black]++;
+        } else if (whiteResult == 0.5) {
+            draws[white]++;
+            draws[black]++;
+        } else {
+            losses[white]++;
+            wins[black]++;
+        }
+
+        record(2 * game + WHITE, white, whiteRating);
+        record(2 * game + BLACK, black, blackRating);
+    }
+
+    private void record(int side, int user, double ratingBefore) {
+        ratingChange[side] = rating[user] - ratingBefore;
+        ratingAfter[side] = rating[user];
+        matchesAfter[side] = matches[user];
+        winsAfter[side] = wins[user];
+        drawsAfter[side] = draws[user];
+        lossesAfter[side] = losses[user];
+    }
+
+    public int games() {
+        return games;
+    }
+
+    public int maxUserId() {
+        return rating.length - 1;
+    }
+
+    public boolean played(int userId) {
+        return played[userId];
+    }
+
+    /**
+     * @return whether the user has a game that changes the rating
+     */
+    public boolean ratedUser(int userId) {
+        return ratedUser[userId];
+    }
+
+    public boolean ratedGame(int game) {
+        return rated[game];
+    }
+
+    public double rating(int userId) {
+        return rating[userId];
+    }
+
+    public int matches(int userId) {
+        return matches[userId];
+    }
+
+    public int wins(int userId) {
+        return wins[userId];
+    }
+
+    public int draws(int userId) {
+        return draws[userId];
+    }
+
+    public int losses(int userId) {
+        return losses[userId];
+    }
+
+    public double ratingChange(int game, int side) {
+        return ratingChange[2 * game + side];
+    }
+
+    public double ratingAfter(int game, int side) {
+        return ratingAfter[2 * game + side];
+    }
+
+    public int matchesAfter(int game, int side) {
+        return matchesAfter[2 * game + side];
+    }
+
+    public int winsAfter(int game, int side) {
+        return winsAfter[2 * game + side];
+    }
+
+    public int drawsAfter(int game, int side) {
+        return drawsAfter[2 * game + side];
+    }
+
+    public int lossesAfter(int game, int side) {
+        return lossesAfter[2 * game + side];
+    }
+}
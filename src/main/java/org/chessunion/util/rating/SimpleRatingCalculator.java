@@ -10,7 +10,6 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class SimpleRatingCalculator implements RatingCalculator {
-
     @Override
     public Match calculate(Match match) {
         if (match.getResult() == null) {
@@ -18,56 +17,23 @@ public class SimpleRatingCalculator implements RatingCalculator {
         }
         Player playerWhite = new Player(match.getWhitePlayer());
         Player playerBlack = new Player(match.getBlackPlayer());
-        Double ratingOfFirstPlayer = playerWhite.getRating();
-        Double ratingOfSecondPlayer = playerBlack.getRating();
-
-        double expectedRatingDifferenceOfFirstPlayer = 1 / (1 + Math.pow(10, (ratingOfSecondPlayer - ratingOfFirstPlayer) / 400));
-        double expectedRatingDifferenceOfSecondPlayer = 1 / (1 + Math.pow(10, (ratingOfFirstPlayer - ratingOfSecondPlayer) / 400));
-
-        double matchResult = match.getResult();
-
-        int whiteK = 40;
-        int blackK = 40;
-
-        if (playerWhite.getAmountOfMatches() > 30){
-            if (playerWhite.getRating() < 2400) {
-                whiteK = 20;
-            } else {
-                whiteK = 10;
-            }
-        }
-
-        if (playerBlack.getAmountOfMatches() > 30){
-            if (playerBlack.getRating() < 2400) {
-                blackK = 20;
-            } else {
-                blackK = 10;
-            }
-        }
-
-        playerWhite.setAmountOfMatches(playerWhite.getAmountOfMatches() + 1);
-        playerBlack.setAmountOfMatches(playerBlack.getAmountOfMatches() + 1);
-
-        if (matchResult == 1) {
-            playerWhite.setAmountOfWins(playerWhite.getAmountOfWins() + 1);
-            playerBlack.setAmountOfLosses(playerBlack.getAmountOfLosses() + 1);
-        } else if (matchResult == 0.5){
-             playerWhite.setAmountOfDraws(playerWhite.getAmountOfDraws() + 1);
-             playerBlack.setAmountOfDraws(playerBlack.getAmountOfDraws() + 1);
-        } else {
-            playerWhite.setAmountOfLosses(playerWhite.getAmountOfLosses() + 1);
-            playerBlack.setAmountOfWins(playerBlack.getAmountOfWins() + 1);
-        }
-
-//        playerWhite.setRating(ratingOfFirstPlayer + whiteK * (matchResult - expectedRatingDifferenceOfFirstPlayer));
-        playerWhite.setRating(Math.max(900, ratingOfFirstPlayer + whiteK * (matchResult - expectedRatingDifferenceOfFirstPlayer)));
-        matchResult = Math.abs(matchResult-1);
-//        playerBlack.setRating(ratingOfSecondPlayer + blackK * (matchResult - expectedRatingDifferenceOfSecondPlayer));
-        playerBlack.setRating(Math.max(900, ratingOfSecondPlayer + blackK * (matchResult - expectedRatingDifferenceOfSecondPlayer)));
+        apply(playerWhite, playerBlack, match.getResult());
 
         match.setWhitePlayer(playerWhite);
         match.setBlackPlayer(playerBlack);
 
         return match;
     }
+
+    @Override
+    public void apply(Player white, Player black, double whiteResult) {
+        double whiteRating = white.getRating();
+        double blackRating = black.getRating();
+        int whiteMatches = white.getAmountOfMatches();
+        int blackMatches = black.getAmountOfMatches();
+
+        RatingCalculator.countGame(white, black, whiteResult);
+        white.setRating(EloKernel.newRating(whiteRating, whiteMatches, blackRating, whiteResult));
+        black.setRating(EloKernel.newRating(blackRating, blackMatches, whiteRating, Math.abs(whiteResult - 1)));
+    }
 }
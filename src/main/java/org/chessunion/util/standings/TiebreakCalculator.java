@@ -0,0 +1,134 @@
+package org.chessunion.util.standings;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Secondary scores of a whole tournament field in one pass over its games.
+ * <ul>
+ *     <li>Buchholz - sum of the current scores of all paired opponents (unfinished games included)</li>
+ *     <li>Buchholz Cut-1 - Buchholz without the weakest opponent</li>
+ *     <li>Sonneborn-Berger - opponent scores weighted by the points taken from them</li>
+ *     <li>progressive score - sum of the running score after every round, byes included</li>
+ * </ul>
+ */
+public final class TiebreakCalculator {
+    private final int[] playerIds;
+    private final double[] scores;
+    private final int rounds;
+    private final Map<Integer, Integer> indexById;
+
+    private int gameCount;
+    private int[] whites = new int[16];
+    private int[] blacks = new int[16];
+    private int[] gameRounds = new int[16];
+    private double[] results = new double[16];
+
+    private final double[][] byePoints;
+
+    /**
+     * @param playerIds ids of the players
+     * @param scores    current scores, aligned with {@code playerIds}
+     * @param rounds    number of rounds generated so far
+     */
+    public TiebreakCalculator(int[] playerIds, double[] scores, int rounds) {
+        this.playerIds = playerIds;
+        this.scores = scores;
+        this.rounds = rounds;
+        this.indexById = new HashMap<>(playerIds.length * 2);
+        for (int i = 0; i < playerIds.length; i++) {
+            indexById.put(playerIds[i], i);
+        }
+        this.byePoints = new double[playerIds.length][rounds + 1];
+    }
+
+    /**
+     * @param result 1.0 - white won, 0.5 - draw, 0.0 - black won, null - not played yet
+     */
+    public TiebreakCalculator game(int whitePlayerId, int blackPlayerId, int round, Double result) {
+        Integer white = indexById.get(whitePlayerId);
+        Integer black = indexById.get(blackPlayerId);
+        if (white == null || black == null) {
+            return this;
+        }
+        if (gameCount == whites.length) {
+            int capacity = gameCount * 2;
+            whites = Arrays.copyOf(whites, capacity);
+            blacks = Arrays.copyOf(blacks, capacity);
+            gameRounds = Arrays.copyOf(gameRounds, capacity);
+            results = Arrays.copyOf(results, capacity);
+        }
+        whites[gameCount] = white;
+        blacks[gameCount] = black;
+        gameRounds[gameCount] = round;
+        results[gameCount] = result == null ? Double.NaN : result;
+        gameCount++;
+        return this;
+    }
+
+    public TiebreakCalculator bye(int playerId, int round) {
+        Integer index = indexById.get(playerId);
+        if (index != null && round >= 0 && round <= rounds) {
+            byePoints[index][round] += 1.0;
+        }
+        return this;
+    }
+
+    /**
+     * @return tiebreaks aligned with the player ids passed to the constructor
+     */
+    public Tiebreaks[] calculate() {
+        int size = playerIds.length;
+        double[] buchholz = new double[size];
+        double[] weakest = new double[size];
+        int[] opponents = new int[size];
+        double[] sonnebornBerger = new double[size];
+        double[][] roundPoints = new double[size][];
+        for (int i = 0; i < size; i++) {
+            roundPoints[i] = byePoints[i].clone();
+        }
+        Arrays.fill(weakest, Double.MAX_VALUE);
+
+        for (int g = 0; g < gameCount; g++) {
+            int white = whites[g];
+            int black = blacks[g];
+            double whiteScore = scores[white];
+            double blackScore = scores[black];
+
+            buchholz[white] += blackScore;
+            buchholz[black] += whiteScore;
+            weakest[white] = Math.min(weakest[white], blackScore);
+            weakest[black] = Math.min(weakest[black], whiteScore);
+            opponents[white]++;
+            opponents[black]++;
+
+            double result = results[g];
+            if (Double.isNaN(result)) {
+                continue;
+            }
+            sonnebornBerger[white] += result * blackScore;
+            sonnebornBerger[black] += (1 - result) * whiteScore;
+            int round = gameRounds[g];
+            if (round >= 0 && round <= rounds) {
+                roundPoints[white][round] += result;
+                roundPoints[black][round] += 1 - result;
+            }
+        }
+
+        Tiebreaks[] tiebreaks = new Tiebreaks[size];
+        for (int i = 0; i < size; i++) {
+            double running = 0;
+            double progressive = 0;
+            for (int round = 0; round <= rounds; round++) {
+                running += roundPoints[i][round];
+                if (round > 0) {
+                    progressive += running;
+                }
+            }
+            double cut = opponents[i] == 0 ? 0 : buchholz[i] - weakest[i];
+            tiebreaks[i] = new Tiebreaks(buchholz[i], cut, sonnebornBerger[i], progressive);
+        }
+        return tiebreaks;
+    }
+}
@@ -0,0 +1,4 @@
+package org.chessunion.util.standings;
+
+public record Tiebreaks(double buchholz, double buchholzCut1, double sonnebornBerger, double progressiveScore) {
+}
@@ -0,0 +1,20 @@
+CREATE TABLE tournament_standings
+(
+    player_id         INTEGER          NOT NULL,
+    tournament_id     INTEGER          NOT NULL,
+    place             INTEGER          NOT NULL,
+    score             DOUBLE PRECISION NOT NULL DEFAULT 0.0,
+    buchholz          DOUBLE PRECISION NOT NULL DEFAULT 0.0,
+    buchholz_cut1     DOUBLE PRECISION NOT NULL DEFAULT 0.0,
+    sonneborn_berger  DOUBLE PRECISION NOT NULL DEFAULT 0.0,
+    progressive_score DOUBLE PRECISION NOT NULL DEFAULT 0.0,
+    CONSTRAINT pk_tournament_standings PRIMARY KEY (player_id)
+);
+
+ALTER TABLE tournament_standings
+    ADD CONSTRAINT FK_TOURNAMENT_STANDINGS_ON_PLAYER FOREIGN KEY (player_id) REFERENCES players (id) ON DELETE CASCADE;
+
+ALTER TABLE tournament_standings
+    ADD CONSTRAINT FK_TOURNAMENT_STANDINGS_ON_TOURNAMENT FOREIGN KEY (tournament_id) REFERENCES tournaments (id);
+
+CREATE INDEX idx_tournament_standings_tournament_place ON tournament_standings (tournament_id, place);
@@ -0,0 +1,20 @@
+-- matches: партии игрока (белыми/чёрными), тур турнира; INCLUDE покрывает проекции для жеребьёвки и таблицы
+CREATE INDEX idx_matches_white_player ON matches (white_player_id) INCLUDE (black_player_id);
+CREATE INDEX idx_matches_black_player ON matches (black_player_id) INCLUDE (white_player_id);
+CREATE INDEX idx_matches_tournament_round ON matches (tournament_id, round_number)
+    INCLUDE (white_player_id, black_player_id, result);
+
+-- players: поле турнира, проверка регистрации и все участия пользователя
+CREATE INDEX idx_players_tournament ON players (tournament_id);
+CREATE INDEX idx_players_user_tournament ON players (user_id, tournament_id);
+
+-- player_histories: откат тура
+CREATE INDEX idx_player_histories_tournament_round ON player_histories (tournament_id, round_of_changes);
+
+-- users: рейтинг-лист, вход по email, регистрация игрока по имени
+CREATE INDEX idx_users_rating ON users (rating DESC);
+CREATE INDEX idx_users_email ON users (email);
+CREATE INDEX idx_users_first_name_last_name ON users (first_name, last_name);
+
+-- tournaments: список турниров
+CREATE INDEX idx_tournaments_created_at ON tournaments (created_at DESC);
@@ -0,0 +1,8 @@
+-- последовательности с шагом 50 для pooled-генерации id в Hibernate (пакетные вставки)
+CREATE SEQUENCE IF NOT EXISTS matches_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS players_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS player_histories_seq INCREMENT BY 50;
+
+SELECT setval('matches_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM matches));
+SELECT setval('players_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM players));
+SELECT setval('player_histories_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM player_histories));
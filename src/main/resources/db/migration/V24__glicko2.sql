@@ -0,0 +1,22 @@
+-- Glicko-2: отклонение рейтинга и волатильность у пользователя и у игрока турнира
+ALTER TABLE users
+    ADD rating_deviation DOUBLE PRECISION NOT NULL DEFAULT 350;
+ALTER TABLE users
+    ADD volatility DOUBLE PRECISION NOT NULL DEFAULT 0.06;
+-- рейтинг Glicko-2 отдельно от users.rating (Эло); null, пока пользователь не сыграл турнир Glicko-2
+ALTER TABLE users
+    ADD glicko_rating DOUBLE PRECISION;
+
+ALTER TABLE players
+    ADD rating_deviation DOUBLE PRECISION NOT NULL DEFAULT 350;
+ALTER TABLE players
+    ADD volatility DOUBLE PRECISION NOT NULL DEFAULT 0.06;
+
+ALTER TABLE player_histories
+    ADD rating_deviation_changes DOUBLE PRECISION DEFAULT 0.0;
+ALTER TABLE player_histories
+    ADD volatility_changes DOUBLE PRECISION DEFAULT 0.0;
+
+-- система рейтинга выбирается при создании турнира
+ALTER TABLE tournaments
+    ADD rating_system VARCHAR(255) NOT NULL DEFAULT 'ELO';
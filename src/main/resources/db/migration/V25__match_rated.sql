@@ -0,0 +1,3 @@
+-- партии без обсчёта рейтинга (неявки и W/D/L из импортированных TRF): очки идут в зачёт, рейтинг не меняется
+ALTER TABLE matches
+    ADD rated BOOLEAN NOT NULL DEFAULT TRUE;
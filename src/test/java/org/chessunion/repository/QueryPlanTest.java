@@ -0,0 +1,277 @@
+package org.chessunion.repository;
+
+import jakarta.persistence.EntityManager;
+import org.chessunion.entity.Tournament;
+import org.chessunion.entity.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Checks on a migrated database with 100k rows per hot table that the access paths of the
+ * repositories are served by indexes. Every repository method is called for real; the statements
+ * Hibernate sends (page and count queries, derived deletes with their flush) are captured with their
+ * bound parameters and explained. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(QueryPlanTest.CapturingDataSource.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class QueryPlanTest {
+    private static final int ROWS = 100_000;
+    private static final List<CapturedStatement> captured = new CopyOnWriteArrayList<>();
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static Connection connection;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private MatchRepository matchRepository;
+    @Autowired
+    private PlayerRepository playerRepository;
+    @Autowired
+    private PlayerHistoryRepository playerHistoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO users (id, password, created_at, email, first_name, last_name, rating, username)
+                    SELECT i, 'x', now(), 'user' || i || '@mail.ru', 'First' || (i % 5000), 'Last' || (i % 7000),
+                           900 + (i * 7919) % 1800, 'user' || i
+                    FROM generate_series(2, %1$d) AS i;
+
+                    INSERT INTO tournaments (id, current_round, max_amount_of_players, min_amount_of_players, stage,
+                                             created_at, name, amount_of_rounds, system_type)
+                    SELECT i, 10, 100, 2, 'PLAYING', now() - i * interval '1 hour', 'Tournament ' || i, 10, 'SWISS'
+                    FROM generate_series(1, 1000) AS i;
+
+                    INSERT INTO players (id, score, color_balance, user_id, rating, tournament_id, had_bye, created_at,
+                                         color_history)
+                    SELECT i, 0, 0, 2 + (i * 31) % (%1$d - 1), 1500, 1 + i % 1000, false, now(), ''
+                    FROM generate_series(1, %1$d) AS i;
+
+                    INSERT INTO matches (id, white_player_id, black_player_id, tournament_id, round_number, result,
+                                         created_at)
+                    SELECT i, i, 1 + (i + 1000) % %1$d, 1 + i % 1000, 1 + (i / 1000) % 10, 0.5, now()
+                    FROM generate_series(1, %1$d) AS i;
+
+                    INSERT INTO player_histories (id, player_id, tournament_id, time, round_of_changes,
+                                                  generated_with_round)
+                    SELECT i, i, 1 + i % 1000, now(), 1 + (i / 1000) % 10, false
+                    FROM generate_series(1, %1$d) AS i;
+
+                    ANALYZE;
+                    """.formatted(ROWS));
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        connection.close();
+    }
+
+    // страница размером 2 заполнена, поэтому Spring Data выполняет и запрос количества
+    static Stream<Named<Consumer<QueryPlanTest>>> repositoryCalls() {
+        return Stream.of(
+                Named.of("MatchRepository.findAllMatchesByPlayerIds", test ->
+                        test.matchRepository.findAllMatchesByPlayerIds(List.of(11, 12, 13), PageRequest.of(0, 2))),
+                Named.of("MatchRepository.findAllMatchesByPlayerId", test ->
+                        test.matchRepository.findAllMatchesByPlayerId(4242)),
+                Named.of("MatchRepository.findAllByTournamentIdAndRoundNumber", test ->
+                        test.matchRepository.findAllByTournamentIdAndRoundNumber(77, 3)),
+                Named.of("MatchRepository.findPlayerIdPairsByTournamentId", test ->
+                        test.matchRepository.findPlayerIdPairsByTournamentId(77)),
+                Named.of("MatchRepository.findGameResultsByTournamentId", test ->
+                        test.matchRepository.findGameResultsByTournamentId(77)),
+                Named.of("MatchRepository.deleteAllByTournamentId", test ->
+                        test.matchRepository.deleteAllByTournamentId(77)),
+                Named.of("PlayerRepository.findAllByTournament_Id", test ->
+                        test.playerRepository.findAllByTournament_Id(77)),
+                Named.of("PlayerRepository.countByTournament_Id", test ->
+                        test.playerRepository.countByTournament_Id(77)),
+                Named.of("PlayerRepository.existsByUserAndTournament", test ->
+                        test.playerRepository.existsByUserAndTournament(test.entityManager.getReference(User.class, 4242),
+                                test.entityManager.getReference(Tournament.class, 77))),
+                Named.of("PlayerRepository.findIdsByUserId", test ->
+                        test.playerRepository.findIdsByUserId(4242)),
+                Named.of("PlayerHistoryRepository.findAllByTournamentIdAndRoundOfChanges", test ->
+                        test.playerHistoryRepository.findAllByTournamentIdAndRoundOfChanges(77, 3)),
+                Named.of("UserRepository.findAllByOrderByRatingDesc", test ->
+                        test.userRepository.findAllByOrderByRatingDesc(PageRequest.of(2, 20))),
+                Named.of("UserRepository.findByEmail", test ->
+                        test.userRepository.findByEmail("user4242@mail.ru")),
+                Named.of("UserRepository.findAllByFirstNameAndLastName", test ->
+                        test.userRepository.findAllByFirstNameAndLastName("First42", "Last42")),
+                Named.of("TournamentRepository.findAllByOrderByCreatedAtDesc", test ->
+                        test.tournamentRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(0, 20)))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositoryCalls")
+    public void noSequentialScanTest(Consumer<QueryPlanTest> call) throws Exception {
+        captured.clear();
+        call.accept(this);
+        // производные delete отправляют DELETE только при flush
+        entityManager.flush();
+        List<CapturedStatement> statements = List.copyOf(captured);
+        Assertions.assertFalse(statements.isEmpty());
+
+        for (CapturedStatement capturedStatement : statements) {
+            String sql = capturedStatement.withLiterals();
+            // количество для страницы неотфильтрованного списка читает всю таблицу в любом случае
+            if (sql.startsWith("select count(") && !sql.contains(" where ")) {
+                continue;
+            }
+            StringBuilder plan = new StringBuilder();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+
+            Assertions.assertFalse(plan.toString().contains("Seq Scan"), () -> sql + "\n" + plan);
+        }
+    }
+
+    private record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+
+        // параметры подставляются литералами, чтобы план строился для тех же значений
+        String withLiterals() {
+            StringBuilder result = new StringBuilder();
+            int parameter = 1;
+            boolean quoted = false;
+            for (char c : sql.toCharArray()) {
+                if (c == '\'') {
+                    quoted = !quoted;
+                }
+                if (c == '?' && !quoted) {
+                    result.append(literal(parameters.get(parameter++)));
+                } else {
+                    result.append(c);
+                }
+            }
+            return result.toString();
+        }
+
+        private static String literal(Object value) {
+            if (value == null) {
+                return "NULL";
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                return value.toString();
+            }
+            return "'" + value.toString().replace("'", "''") + "'";
+        }
+    }
+
+    /**
+     * Wraps the data source so that every prepared statement is recorded with its parameters when executed.
+     */
+    static class CapturingDataSource implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return proxy(DataSource.class, (method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    return result instanceof Connection connection ? capturing(connection) : result;
+                });
+            }
+            return bean;
+        }
+
+        private static Connection capturing(Connection connection) {
+            return proxy(Connection.class, (method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                    return capturing(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private static PreparedStatement capturing(PreparedStatement statement, String sql) {
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(PreparedStatement.class, (method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    parameters.put(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("addBatch") || name.startsWith("execute")) {
+                    captured.add(new CapturedStatement(sql, new TreeMap<>(parameters)));
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Handler handler) {
+            InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(method, args);
+            return (T) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private interface Handler {
+            Object handle(Method method, Object[] args) throws Throwable;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.chessunion.service;
+
+import org.chessunion.entity.Player;
+import org.chessunion.entity.PlayerHistory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+public class PlayerHistoryServiceTest {
+    private final PlayerHistoryService playerHistoryService = new PlayerHistoryService(null, null);
+
+    @Test
+    public void rollbackTrimsOnlyTheRoundColourTest() {
+        // второй тур: сыграл чёрными и выиграл; откат снимает и результат, и генерацию тура
+        Player player = new Player();
+        player.setRating(1016.0);
+        player.setScore(1.0);
+        player.setAmountOfMatches(1);
+        player.setAmountOfWins(1);
+        player.setColorBalance(0);
+        player.setColorHistory("wb");
+
+        PlayerHistory generated = new PlayerHistory(1, 1, LocalDateTime.now(), 2);
+        generated.setGeneratedWithRound(true);
+        generated.setColorBalanceChanges(1);
+
+        PlayerHistory result = new PlayerHistory(1, 1, LocalDateTime.now(), 2);
+        result.setRatingChanges(16.0);
+        result.setScoreChanges(1.0);
+        result.setAmountOfMatchesChanges(1);
+        result.setAmountOfWinsChanges(1);
+
+        playerHistoryService.rollbackMapPlayer(player, result);
+        Assertions.assertEquals("wb", player.getColorHistory());
+
+        playerHistoryService.rollbackMapPlayer(player, generated);
+        Assertions.assertEquals("w", player.getColorHistory());
+        Assertions.assertEquals(-1, player.getColorBalance());
+        Assertions.assertEquals(1000.0, player.getRating());
+        Assertions.assertEquals(0.0, player.getScore());
+        Assertions.assertEquals(0, player.getAmountOfMatches());
+    }
+}
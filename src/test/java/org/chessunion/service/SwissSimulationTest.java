@@ -0,0 +1,208 @@
+package org.chessunion.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.chessunion.dto.MatchResultSetRequest;
+import org.chessunion.dto.TournamentCreateRequest;
+import org.chessunion.entity.Tournament;
+import org.chessunion.entity.User;
+import org.chessunion.repository.UserRepository;
+import org.chessunion.util.rating.EloKernel;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Headless Swiss tournament played end to end through TournamentService and MatchService on a real
+ * Postgres: synthetic users are registered, rounds are generated and results are drawn from the Elo
+ * expectation of hidden strengths with a fixed seed. Prints per-round generation time and statement
+ * count and checks rematches, colour rules and that the same seed replays the same tournament.
+ * Skipped when Docker is not available.
+ * <p>
+ * As a benchmark: {@code mvn test -Dtest=SwissSimulationTest -Dsimulation.players=256 -Dsimulation.rounds=11}
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true",
+        "jwt.secret=simulation-secret-simulation-secret-simulation-secret",
+        "jwt.lifetime=1d",
+        "sms.api.key=",
+        "sms.api.senderName=",
+        "cors.url=http://localhost"
+})
+@Testcontainers(disabledWithoutDocker = true)
+public class SwissSimulationTest {
+    private static final int PLAYERS = Integer.getInteger("simulation.players", 61);
+    private static final int ROUNDS = Integer.getInteger("simulation.rounds", 9);
+    private static final long SEED = Long.getLong("simulation.seed", 42L);
+    // доля ничьих вокруг ожидаемого результата
+    private static final double DRAW_BAND = 0.15;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    private static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    // жеребьёвка заранее работает в фоне и сбивала бы и время, и счёт запросов
+    @MockitoBean
+    private RoundPlanService roundPlanService;
+
+    @Autowired
+    private TournamentService tournamentService;
+    @Autowired
+    private MatchService matchService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void swissTournamentTest() {
+        Simulation first = simulate("first");
+        Simulation second = simulate("second");
+
+        Assertions.assertEquals(0, first.rematches());
+        Assertions.assertEquals(0, first.colourViolations());
+        Assertions.assertEquals(first.games(), second.games(), "same seed must replay the same tournament");
+    }
+
+    private Simulation simulate(String name) {
+        Random random = new Random(SEED);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // различные рейтинги: первый тур сортирует по рейтингу, порядок не должен зависеть от порядка строк
+        List<Integer> strengths = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            strengths.add(1200 + 10 * i);
+        }
+        Collections.shuffle(strengths, random);
+        List<User> users = new ArrayList<>(PLAYERS);
+        for (int i = 0; i < PLAYERS; i++) {
+            User user = new User();
+            user.setUsername(name + "_" + i);
+            user.setFirstName("Player" + i);
+            user.setLastName(name);
+            user.setEmail(name + "_" + i + "@simulation.test");
+            user.setPassword("x");
+            user.setRating((double) strengths.get(i));
+            user.setAmountOfMatches(0);
+            user.setCreatedAt(LocalDateTime.now());
+            users.add(user);
+        }
+        Map<Integer, Integer> indexByUserId = new HashMap<>();
+        List<User> saved = userRepository.saveAll(users);
+        for (int i = 0; i < saved.size(); i++) {
+            indexByUserId.put(saved.get(i).getId(), i);
+        }
+
+        TournamentCreateRequest request = new TournamentCreateRequest();
+        request.setName("Simulation " + name);
+        request.setMaxAmountOfPlayers(PLAYERS);
+        request.setMinAmountOfPlayers(2);
+        request.setAmountOfRounds(ROUNDS);
+        request.setSystemType(Tournament.SystemType.SWISS);
+        tournamentService.createTournament(request);
+        int tournamentId = jdbcTemplate.queryForObject("SELECT id FROM tournaments WHERE name = ?", Integer.class, request.getName());
+        for (User user : saved) {
+            tournamentService.registrationTournament(user.getUsername(), tournamentId, false);
+        }
+
+        List<String> games = new ArrayList<>();
+        Set<Long> pairs = new HashSet<>();
+        Map<Integer, StringBuilder> colours = new HashMap<>();
+        int rematches = 0;
+        System.out.printf("Simulation %s: %d players, %d rounds, seed %d%n", name, PLAYERS, ROUNDS, SEED);
+        for (int round = 1; round <= ROUNDS; round++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            tournamentService.generateNextRound(tournamentId);
+            long elapsed = System.nanoTime() - start;
+            long statements = statistics.getPrepareStatementCount();
+
+            List<MatchResultSetRequest> results = new ArrayList<>();
+            int roundRematches = 0;
+            for (Map<String, Object> board : jdbcTemplate.queryForList("""
+                    SELECT m.id, w.user_id AS white, b.user_id AS black
+                    FROM matches m
+                    JOIN players w ON w.id = m.white_player_id
+                    JOIN players b ON b.id = m.black_player_id
+                    WHERE m.tournament_id = ? AND m.round_number = ?
+                    ORDER BY m.id
+                    """, tournamentId, round)) {
+                int white = indexByUserId.get((Integer) board.get("white"));
+                int black = indexByUserId.get((Integer) board.get("black"));
+                double expected = EloKernel.expectedScore(strengths.get(white), strengths.get(black));
+                double draw = random.nextDouble();
+                double result = draw < expected - DRAW_BAND ? 1.0 : draw < expected + DRAW_BAND ? 0.5 : 0.0;
+                results.add(new MatchResultSetRequest((Integer) board.get("id"), result));
+
+                if (!pairs.add(((long) Math.min(white, black) << 32) | Math.max(white, black))) {
+                    roundRematches++;
+                }
+                colours.computeIfAbsent(white, index -> new StringBuilder()).append('w');
+                colours.computeIfAbsent(black, index -> new StringBuilder()).append('b');
+                games.add(round + ":" + white + "-" + black + "=" + result);
+            }
+            matchService.setResultToListOfMatches(results);
+            rematches += roundRematches;
+
+            System.out.printf("  round %2d: %8.1f ms, %5d statements, %3d boards, %d rematches%n",
+                    round, elapsed / 1e6, statements, results.size(), roundRematches);
+        }
+        tournamentService.generateNextRound(tournamentId);
+
+        int colourViolations = 0;
+        for (StringBuilder sequence : colours.values()) {
+            if (colourViolation(sequence)) {
+                colourViolations++;
+            }
+        }
+        System.out.printf("  rematches: %d, players with colour violations: %d%n", rematches, colourViolations);
+        return new Simulation(games, rematches, colourViolations);
+    }
+
+    // три одинаковых цвета подряд или разница цветов больше двух
+    private static boolean colourViolation(CharSequence sequence) {
+        int balance = 0;
+        for (int i = 0; i < sequence.length(); i++) {
+            balance += sequence.charAt(i) == 'w' ? 1 : -1;
+            if (Math.abs(balance) > 2) {
+                return true;
+            }
+            if (i >= 2 && sequence.charAt(i) == sequence.charAt(i - 1) && sequence.charAt(i) == sequence.charAt(i - 2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Simulation(List<String> games, int rematches, int colourViolations) {
+    }
+}
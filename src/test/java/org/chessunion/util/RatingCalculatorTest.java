@@ -3,13 +3,18 @@ package org.chessunion.util;
 import org.chessunion.entity.Match;
 import org.chessunion.entity.Player;
 import org.chessunion.exception.MatchHasNotResultException;
+import org.chessunion.util.rating.EloKernel;
+import org.chessunion.util.rating.Glicko2;
 import org.chessunion.util.rating.RatingCalculator;
+import org.chessunion.util.rating.RatingReplay;
 import org.chessunion.util.rating.SimpleRatingCalculator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 public class RatingCalculatorTest {
     private static Match match;
     private static RatingCalculator ratingCalculator;
@@ -74,4 +79,95 @@ public class RatingCalculatorTest {
 
         Assertions.assertThrows(MatchHasNotResultException.class, () -> ratingCalculator.calculate(match));
     }
+
+    @Test
+    public void replayMatchesCalculatorTest() {
+        int users = 40;
+        Random random = new Random(7);
+        Player[] players = new Player[users + 1];
+        for (int id = 1; id <= users; id++) {
+            players[id] = new Player();
+            players[id].setId(id);
+            players[id].setRating(1000.0);
+        }
+
+        // параллельно считается каждая волна, и результат всё равно совпадает с последовательным
+        RatingReplay replay = new RatingReplay(users, 2000, 1000.0);
+        SimpleRatingCalculator calculator = new SimpleRatingCalculator();
+        for (int game = 0; game < 2000; game++) {
+            int white = 1 + random.nextInt(users);
+            int black = 1 + (white + random.nextInt(users - 1)) % users;
+            double result = random.nextInt(3) / 2.0;
+
+            Match match = new Match();
+            match.setWhitePlayer(players[white]);
+            match.setBlackPlayer(players[black]);
+            match.setResult(result);
+            calculator.calculate(match);
+            players[white] = match.getWhitePlayer();
+            players[black] = match.getBlackPlayer();
+
+            replay.addGame(white, black, result);
+        }
+        replay.run(1);
+
+        for (int id = 1; id <= users; id++) {
+            Assertions.assertEquals(players[id].getRating(), replay.rating(id));
+            Assertions.assertEquals(players[id].getAmountOfMatches(), replay.matches(id));
+            Assertions.assertEquals(players[id].getAmountOfWins(), replay.wins(id));
+        }
+    }
+
+    @Test
+    public void replayUnratedGameOnlyCountsTest() {
+        // партия Glicko-2 меняет только счётчики, а через них K-фактор следующей партии Эло
+        RatingReplay replay = new RatingReplay(3, 2, 1000.0);
+        replay.addGame(1, 3, 1, false);
+        replay.addGame(1, 2, 1);
+        replay.run(1);
+
+        Assertions.assertEquals(1000.0, replay.rating(3));
+        Assertions.assertFalse(replay.ratedUser(3));
+        Assertions.assertEquals(1, replay.matches(3));
+        Assertions.assertEquals(1, replay.losses(3));
+        Assertions.assertFalse(replay.ratedGame(0));
+        Assertions.assertEquals(0.0, replay.ratingChange(0, RatingReplay.WHITE));
+
+        Assertions.assertEquals(2, replay.matches(1));
+        Assertions.assertEquals(EloKernel.newRating(1000.0, 1, 1000.0, 1), replay.rating(1));
+        Assertions.assertEquals(EloKernel.newRating(1000.0, 0, 1000.0, 0), replay.rating(2));
+    }
+
+    @Test
+    public void eloKernelTableTest() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            double rating = 1000 + random.nextDouble() * 1800;
+            double opponentRating = rating + (random.nextDouble() - 0.5) * 2400;
+            double exact = 1 / (1 + Math.pow(10, (opponentRating - rating) / 400));
+            Assertions.assertEquals(exact, EloKernel.expectedScore(rating, opponentRating), 1e-6);
+        }
+
+        EloKernel.Result result = new EloKernel.Result();
+        EloKernel.rate(1500, 0, 1500, 0, 1.0, result);
+        Assertions.assertEquals(1520.0, result.whiteRating);
+        Assertions.assertEquals(1480.0, result.blackRating);
+    }
+
+    @Test
+    public void glicko2PaperExampleTest() {
+        // пример из статьи Glickman "Example of the Glicko-2 system"
+        double[] rating = {1500, 1400, 1550, 1700};
+        double[] deviation = {200, 30, 100, 300};
+        double[] volatility = {0.06, 0.06, 0.06, 0.06};
+        int[] first = {0, 0, 0};
+        int[] second = {1, 2, 3};
+        double[] firstScore = {1, 0, 0};
+
+        new Glicko2(0.5).ratePeriod(rating, deviation, volatility, first, second, firstScore, 3);
+
+        Assertions.assertEquals(1464.06, rating[0], 0.01);
+        Assertions.assertEquals(151.52, deviation[0], 0.01);
+        Assertions.assertEquals(0.05999, volatility[0], 0.00001);
+    }
 }
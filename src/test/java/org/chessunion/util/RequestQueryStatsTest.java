@@ -0,0 +1,35 @@
+package org.chessunion.util;
+
+import org.chessunion.util.query.QueryCountingStatementInspector;
+import org.chessunion.util.query.RequestQueryStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RequestQueryStatsTest {
+    private final QueryCountingStatementInspector inspector = new QueryCountingStatementInspector();
+
+    @Test
+    public void repeatedStatementsAreGroupedTest() {
+        RequestQueryStats.start();
+        inspector.inspect("select u.id from users u where u.id=?");
+        for (int i = 0; i < 3; i++) {
+            inspector.inspect("select p.id from players p where p.user_id=?");
+        }
+        RequestQueryStats stats = RequestQueryStats.stop();
+
+        Assertions.assertEquals(4, stats.statementCount());
+        String breakdown = stats.breakdown(5);
+        Assertions.assertTrue(breakdown.indexOf("3 x select p.id") < breakdown.indexOf("1 x select u.id"), breakdown);
+    }
+
+    @Test
+    public void statementsOutsideRequestAreNotCountedTest() {
+        Assertions.assertEquals("select 1", inspector.inspect("select 1"));
+
+        RequestQueryStats.start();
+        RequestQueryStats stats = RequestQueryStats.stop();
+
+        Assertions.assertEquals(0, stats.statementCount());
+        Assertions.assertNull(RequestQueryStats.stop());
+    }
+}
@@ -0,0 +1,224 @@
+package org.chessunion.util;
+
+import org.chessunion.util.pairing.BlossomSwissPairingEngine;
+import org.chessunion.util.pairing.PairingPlan;
+import org.chessunion.util.pairing.PairingState;
+import org.chessunion.util.pairing.SwissPairingEngine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class SwissPairingEngineTest {
+    private final SwissPairingEngine engine = new BlossomSwissPairingEngine();
+
+    private static PairingState.Builder field(double... scores) {
+        PairingState.Builder builder = PairingState.builder(scores.length);
+        for (int i = 0; i < scores.length; i++) {
+            builder.player(i + 1, scores[i], 2000.0 - i, 0, "", false);
+        }
+        return builder;
+    }
+
+    private static Set<Integer> ids(PairingPlan plan, int board) {
+        return Set.of(plan.whitePlayerIds()[board], plan.blackPlayerIds()[board]);
+    }
+
+    @Test
+    public void topHalfPlaysBottomHalfTest() {
+        PairingPlan pairs = engine.pair(field(0, 0, 0, 0, 0, 0, 0, 0).build()).orElseThrow();
+
+        Assertions.assertEquals(4, pairs.boards());
+        Assertions.assertEquals(Set.of(1, 5), ids(pairs, 0));
+        Assertions.assertEquals(Set.of(2, 6), ids(pairs, 1));
+        Assertions.assertEquals(Set.of(3, 7), ids(pairs, 2));
+        Assertions.assertEquals(Set.of(4, 8), ids(pairs, 3));
+    }
+
+    @Test
+    public void scoreGroupsArePairedInsideTest() {
+        PairingPlan pairs = engine.pair(field(2, 2, 1, 1, 0, 0).build()).orElseThrow();
+
+        Assertions.assertEquals(Set.of(1, 2), ids(pairs, 0));
+        Assertions.assertEquals(Set.of(3, 4), ids(pairs, 1));
+        Assertions.assertEquals(Set.of(5, 6), ids(pairs, 2));
+    }
+
+    @Test
+    public void rematchesAndColourConstraintsAreRespectedTest() {
+        // 1 и 2 дважды подряд играли белыми, 1 уже встречался с 3
+        PairingState state = PairingState.builder(4)
+                .player(1, 1, 2000, -2, "ww", false)
+                .player(2, 1, 1990, -2, "ww", false)
+                .player(3, 1, 1980, 2, "bb", false)
+                .player(4, 1, 1970, 0, "wb", false)
+                .game(1, 3)
+                .build();
+
+        PairingPlan pairs = engine.pair(state).orElseThrow();
+
+        Assertions.assertEquals(4, pairs.whitePlayerIds()[0]);
+        Assertions.assertEquals(1, pairs.blackPlayerIds()[0]);
+        Assertions.assertEquals(3, pairs.whitePlayerIds()[1]);
+        Assertions.assertEquals(2, pairs.blackPlayerIds()[1]);
+    }
+
+    @Test
+    public void byeGoesToLowestPlayerWithoutByeTest() {
+        PairingState state = PairingState.builder(5)
+                .player(1, 2, 2000, 0, "", false)
+                .player(2, 2, 1990, 0, "", false)
+                .player(3, 1, 1980, 0, "", false)
+                .player(4, 1, 1970, 0, "", false)
+                .player(5, 0, 1960, 0, "", true)
+                .build();
+
+        PairingPlan pairs = engine.pair(state).orElseThrow();
+
+        Assertions.assertEquals(4, pairs.byePlayerId());
+        Assertions.assertEquals(2, pairs.boards());
+    }
+
+    @Test
+    public void noCompletePairingTest() {
+        PairingState state = field(1, 1, 0, 0).game(1, 2).game(3, 1).game(1, 4).build();
+
+        Assertions.assertTrue(engine.pair(state).isEmpty());
+    }
+
+    @Test
+    public void agreesWithExhaustiveSearchTest() {
+        Random random = new Random(42);
+        for (int attempt = 0; attempt < 300; attempt++) {
+            int n = 2 * (1 + random.nextInt(5));
+            // таблица по убыванию очков, группы случайного размера, предпочтения цвета разные
+            int[] halfPoints = new int[n];
+            halfPoints[0] = n;
+            for (int i = 1; i < n; i++) {
+                halfPoints[i] = halfPoints[i - 1] - (random.nextInt(3) == 0 ? 1 + random.nextInt(2) : 0);
+            }
+            PairingState.Builder builder = PairingState.builder(n);
+            for (int i = 0; i < n; i++) {
+                builder.player(i + 1, halfPoints[i] / 2.0, 2000.0 - i, random.nextInt(3) - 1, "", false);
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (random.nextInt(100) < 40) {
+                        builder.game(i + 1, j + 1);
+                    }
+                }
+            }
+            PairingState state = builder.build();
+            long[][] penalty = penalties(state);
+
+            long minimum = minimumPenalty(state, penalty, new boolean[n]);
+            Optional<PairingPlan> pairs = engine.pair(state);
+
+            Assertions.assertEquals(minimum != Long.MAX_VALUE, pairs.isPresent());
+            pairs.ifPresent(plan -> {
+                Set<Integer> seen = new HashSet<>();
+                long total = 0;
+                for (int board = 0; board < plan.boards(); board++) {
+                    int white = plan.whitePlayerIds()[board] - 1;
+                    int black = plan.blackPlayerIds()[board] - 1;
+                    Assertions.assertTrue(state.canPlay(white, black));
+                    Assertions.assertTrue(seen.add(white));
+                    Assertions.assertTrue(seen.add(black));
+                    total += penalty[white][black];
+                }
+                Assertions.assertEquals(n, seen.size());
+                // жеребьёвка не хуже лучшей из всех возможных
+                Assertions.assertEquals(minimum, total);
+            });
+        }
+    }
+
+    @Test
+    public void largeLateRoundFieldTest() {
+        int n = 200;
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = (n - i) / 20;
+        }
+        PairingState.Builder builder = field(scores);
+        for (int i = 0; i < n; i++) {
+            // каждый уже сыграл с десятью ближайшими соседями по таблице
+            for (int d = 1; d <= 5; d++) {
+                builder.game(i + 1, (i + d) % n + 1);
+            }
+        }
+        PairingState state = builder.build();
+
+        Assertions.assertTimeoutPreemptively(java.time.Duration.ofSeconds(10), () -> {
+            PairingPlan pairs = engine.pair(state).orElseThrow();
+            Assertions.assertEquals(n / 2, pairs.boards());
+        });
+    }
+
+    @Test
+    public void equalSnapshotsAreRecognisedTest() {
+        PairingState state = field(1, 1, 0.5, 0).game(1, 3).game(2, 4).build();
+        PairingState same = field(1, 1, 0.5, 0).game(2, 4).game(3, 1).build();
+        PairingState otherScore = field(1, 1, 0, 0.5).game(1, 3).game(2, 4).build();
+        PairingState otherGames = field(1, 1, 0.5, 0).game(1, 4).game(2, 3).build();
+
+        Assertions.assertTrue(state.sameAs(same));
+        Assertions.assertEquals(state.contentHash(), same.contentHash());
+        Assertions.assertFalse(state.sameAs(otherScore));
+        Assertions.assertFalse(state.sameAs(otherGames));
+    }
+
+    // штраф пары, как его задаёт BlossomSwissPairingEngine: разница очков, затем одинаковый цвет, затем порядок в группе
+    private static long[][] penalties(PairingState state) {
+        int n = state.size();
+        long colourFactor = (long) n * n + 1;
+        long scoreFactor = colourFactor * (n + 1);
+        long[][] penalty = new long[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int groupStart = i;
+                while (groupStart > 0 && state.scoreHalfPoints(groupStart - 1) == state.scoreHalfPoints(i)) {
+                    groupStart--;
+                }
+                int groupEnd = i;
+                while (groupEnd < n && state.scoreHalfPoints(groupEnd) == state.scoreHalfPoints(i)) {
+                    groupEnd++;
+                }
+                long scoreDiff = Math.abs(state.scoreHalfPoints(i) - state.scoreHalfPoints(j));
+                boolean sameColour = state.colourBalance(i) != 0
+                        && Integer.signum(state.colourBalance(i)) == Integer.signum(state.colourBalance(j));
+                long rank = j < groupEnd ? Math.abs((j - i) - (groupEnd - groupStart) / 2) : j - i;
+                penalty[i][j] = penalty[j][i] = scoreDiff * scoreDiff * scoreFactor + (sameColour ? colourFactor : 0) + rank;
+            }
+        }
+        return penalty;
+    }
+
+    // перебор всех полных жеребьёвок; Long.MAX_VALUE, если полной нет
+    private static long minimumPenalty(PairingState state, long[][] penalty, boolean[] used) {
+        int first = -1;
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                first = i;
+                break;
+            }
+        }
+        if (first == -1) {
+            return 0;
+        }
+        long best = Long.MAX_VALUE;
+        used[first] = true;
+        for (int j = first + 1; j < used.length; j++) {
+            if (!used[j] && state.canPlay(first, j)) {
+                used[j] = true;
+                long rest = minimumPenalty(state, penalty, used);
+                if (rest != Long.MAX_VALUE) {
+                    best = Math.min(best, penalty[first][j] + rest);
+                }
+                used[j] = false;
+            }
+        }
+        used[first] = false;
+        return best;
+    }
+}
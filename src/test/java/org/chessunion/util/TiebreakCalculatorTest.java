@@ -0,0 +1,69 @@
+package org.chessunion.util;
+
+import org.chessunion.util.standings.TiebreakCalculator;
+import org.chessunion.util.standings.Tiebreaks;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TiebreakCalculatorTest {
+
+    // 1: победа над 2, ничья с 3; 2: победа над 4; 3: победа над 4 белыми, bye в первом туре;
+    // 4: проиграл 2 и 3, партия третьего тура с 1 ещё не сыграна
+    private static Tiebreaks[] field() {
+        return new TiebreakCalculator(new int[]{1, 2, 3, 4}, new double[]{1.5, 1.0, 2.5, 0.0}, 3)
+                .game(1, 2, 1, 1.0)
+                .game(4, 2, 2, 0.0)
+                .game(3, 4, 1, 1.0)
+                .game(3, 1, 2, 0.5)
+                .game(1, 4, 3, null)
+                .bye(3, 3)
+                .calculate();
+    }
+
+    @Test
+    public void buchholzTest() {
+        Tiebreaks[] tiebreaks = field();
+
+        Assertions.assertEquals(3.5, tiebreaks[0].buchholz());
+        Assertions.assertEquals(1.5, tiebreaks[1].buchholz());
+        Assertions.assertEquals(1.5, tiebreaks[2].buchholz());
+        Assertions.assertEquals(5.0, tiebreaks[3].buchholz());
+    }
+
+    @Test
+    public void buchholzCut1Test() {
+        Tiebreaks[] tiebreaks = field();
+
+        Assertions.assertEquals(3.5, tiebreaks[0].buchholzCut1());
+        Assertions.assertEquals(1.5, tiebreaks[1].buchholzCut1());
+        Assertions.assertEquals(1.5, tiebreaks[2].buchholzCut1());
+        Assertions.assertEquals(4.0, tiebreaks[3].buchholzCut1());
+    }
+
+    @Test
+    public void sonnebornBergerTest() {
+        Tiebreaks[] tiebreaks = field();
+
+        Assertions.assertEquals(1.0 + 1.25, tiebreaks[0].sonnebornBerger());
+        Assertions.assertEquals(0.0, tiebreaks[1].sonnebornBerger());
+        Assertions.assertEquals(0.75, tiebreaks[2].sonnebornBerger());
+        Assertions.assertEquals(0.0, tiebreaks[3].sonnebornBerger());
+    }
+
+    @Test
+    public void progressiveScoreTest() {
+        Tiebreaks[] tiebreaks = field();
+
+        Assertions.assertEquals(1.0 + 1.5 + 1.5, tiebreaks[0].progressiveScore());
+        Assertions.assertEquals(0.0 + 1.0 + 1.0, tiebreaks[1].progressiveScore());
+        Assertions.assertEquals(1.0 + 1.5 + 2.5, tiebreaks[2].progressiveScore());
+        Assertions.assertEquals(0.0, tiebreaks[3].progressiveScore());
+    }
+
+    @Test
+    public void playerWithoutGamesTest() {
+        Tiebreaks[] tiebreaks = new TiebreakCalculator(new int[]{7}, new double[]{0.0}, 0).calculate();
+
+        Assertions.assertEquals(new Tiebreaks(0, 0, 0, 0), tiebreaks[0]);
+    }
+}
@@ -0,0 +1,65 @@
+package org.chessunion.util;
+
+import org.chessunion.repository.UserRepository;
+import org.chessunion.security.JwtUtil;
+import org.chessunion.security.TokenRevocationList;
+import org.chessunion.security.VerifiedTokenCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TokenRevocationListTest {
+    // общее хранилище Redis для нескольких реплик
+    private final Map<String, String> redis = new HashMap<>();
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ValueOperations<String, String> values = Mockito.mock(ValueOperations.class);
+        Mockito.doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(values).set(Mockito.anyString(), Mockito.anyString(), Mockito.any(Duration.class));
+        Mockito.when(values.get(Mockito.anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(values);
+    }
+
+    private TokenRevocationList replica() {
+        JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+        Mockito.when(jwtUtil.getJwtLifetime()).thenReturn(Duration.ofDays(150));
+        return new TokenRevocationList(Mockito.mock(UserRepository.class), jwtUtil, Mockito.mock(VerifiedTokenCache.class),
+                redisTemplate, Mockito.mock(RedisMessageListenerContainer.class), Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void revocationSurvivesRestartAndLostMessageTest() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        replica().revoke("admin");
+
+        // новая реплика (или перезапуск) без pub/sub-сообщения читает отзыв из Redis
+        TokenRevocationList other = replica();
+        Assertions.assertTrue(other.isRevoked("admin", issuedAt));
+        Assertions.assertFalse(other.isRevoked("someone", issuedAt));
+    }
+
+    @Test
+    public void tokenOfTheSameSecondIsRevokedTest() {
+        TokenRevocationList list = replica();
+        list.revoke("user");
+        Instant revokedAt = Instant.ofEpochMilli(Long.parseLong(redis.get("chessunion:token-revoked:user")));
+
+        Instant sameSecond = revokedAt.truncatedTo(ChronoUnit.SECONDS);
+        Assertions.assertTrue(list.isRevoked("user", sameSecond));
+        Assertions.assertFalse(list.isRevoked("user", sameSecond.plusSeconds(1)));
+    }
+}
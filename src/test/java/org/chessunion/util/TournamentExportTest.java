@@ -0,0 +1,167 @@
+package org.chessunion.util;
+
+import org.chessunion.entity.Tournament;
+import org.chessunion.repository.PlayerRepository;
+import org.chessunion.repository.TournamentRepository;
+import org.chessunion.service.TournamentExportService;
+import org.chessunion.service.TransliterationService;
+import org.chessunion.util.export.PgnWriter;
+import org.chessunion.util.export.TrfReader;
+import org.chessunion.util.export.TrfTournament;
+import org.chessunion.util.export.TrfWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+public class TournamentExportTest {
+
+    @Test
+    public void trfPlayerLineHasFixedColumnsTest() throws Exception {
+        StringWriter out = new StringWriter();
+        TrfWriter trf = new TrfWriter(out, 3);
+        trf.startPlayer(1, "Ivanov, Ivan", 1512, 1.5, 2);
+        trf.game(2, 3, TrfWriter.BLACK, 0.5);
+        trf.game(1, 12, TrfWriter.WHITE, 1.0);
+        trf.endPlayer(3);
+
+        String line = out.toString();
+        Assertions.assertTrue(line.startsWith("001    1      Ivanov, Ivan"));
+        Assertions.assertEquals("1512", line.substring(48, 52));
+        Assertions.assertEquals(" 1.5", line.substring(80, 84));
+        Assertions.assertEquals("   2", line.substring(85, 89));
+        Assertions.assertEquals("  0012 w 1  0003 b =  0000 - Z\n", line.substring(89));
+    }
+
+    @Test
+    public void trfByeAndUnfinishedGameTest() throws Exception {
+        StringWriter out = new StringWriter();
+        TrfWriter trf = new TrfWriter(out, 5);
+        trf.startPlayer(7, "Petrov, Petr", 0, 1.0, 0);
+        trf.bye(1);
+        trf.game(2, 4, TrfWriter.WHITE, null);
+        trf.endPlayer(2);
+
+        Assertions.assertTrue(out.toString().endsWith("  0000 - U  0004 w  \n"));
+    }
+
+    @Test
+    public void pgnGameTagsTest() throws Exception {
+        StringWriter out = new StringWriter();
+        PgnWriter pgn = new PgnWriter(out, "Cup \"Open\"", "Moscow", LocalDate.of(2024, 5, 1));
+        pgn.game(3, "Ivanov, Ivan", "Petrov, Petr", 0.5);
+
+        String text = out.toString();
+        Assertions.assertTrue(text.contains("[Event \"Cup \\\"Open\\\"\"]\n"));
+        Assertions.assertTrue(text.contains("[Date \"2024.05.01\"]\n"));
+        Assertions.assertTrue(text.contains("[Round \"3\"]\n"));
+        Assertions.assertTrue(text.endsWith("[Result \"1/2-1/2\"]\n\n1/2-1/2\n\n"));
+    }
+
+    @Test
+    public void trfReadsWhatIsWrittenTest() throws Exception {
+        StringWriter out = new StringWriter();
+        TrfWriter trf = new TrfWriter(out, 2);
+        trf.header("Cup", "Moscow", LocalDate.of(2024, 5, 1), 2);
+        trf.startPlayer(1, "Ivanov, Ivan", 1500, 1.0, 1);
+        trf.game(1, 2, TrfWriter.WHITE, 1.0);
+        trf.bye(2);
+        trf.endPlayer(2);
+        trf.startPlayer(2, "Petrov, Petr", 1400, 0.0, 2);
+        trf.game(1, 1, TrfWriter.BLACK, 0.0);
+        trf.endPlayer(2);
+
+        TrfTournament tournament = TrfReader.read(new BufferedReader(new StringReader(out.toString())), "test.trf");
+        Assertions.assertEquals("Cup", tournament.name());
+        Assertions.assertEquals(LocalDate.of(2024, 5, 1), tournament.startDate());
+        Assertions.assertEquals(2, tournament.rounds());
+        TrfTournament.TrfPlayer ivanov = tournament.players().getFirst();
+        Assertions.assertEquals("Ivanov", ivanov.lastName());
+        Assertions.assertEquals("Ivan", ivanov.firstName());
+        Assertions.assertEquals(2, ivanov.opponent(1));
+        Assertions.assertEquals('w', ivanov.colour(1));
+        Assertions.assertEquals('1', ivanov.result(1));
+        Assertions.assertEquals(0, ivanov.opponent(2));
+        Assertions.assertEquals('U', ivanov.result(2));
+        TrfTournament.TrfPlayer petrov = tournament.players().get(1);
+        Assertions.assertEquals('0', petrov.result(1));
+        Assertions.assertEquals('Z', petrov.result(2));
+    }
+
+    @Test
+    public void exportedRowsKeepUnfinishedGamesTest() throws Exception {
+        Tournament tournament = new Tournament();
+        tournament.setId(1);
+        tournament.setName("Cup");
+        tournament.setAmountOfRounds(2);
+        tournament.setCurrentRound(2);
+
+        List<String> trfColumns = List.of("start_rank", "first_name", "last_name", "rating", "score", "place",
+                "round_number", "colour", "points", "opponent_rank");
+        String trf = export(tournament, true, trfColumns, List.of(
+                new Object[]{1, "Ivan", "Ivanov", 1500.0, 1.0, 1, 1, "w", 1.0, 2},
+                new Object[]{1, "Ivan", "Ivanov", 1500.0, 1.0, 1, 2, "b", null, 2}));
+        Assertions.assertTrue(trf.endsWith("  0002 w 1  0002 b  \n"), trf);
+
+        List<String> pgnColumns = List.of("round_number", "result", "white_first", "white_last", "black_first", "black_last");
+        String pgn = export(tournament, false, pgnColumns, List.<Object[]>of(
+                new Object[]{2, null, "Ivan", "Ivanov", "Petr", "Petrov"}));
+        Assertions.assertTrue(pgn.endsWith("[Result \"*\"]\n\n*\n\n"), pgn);
+    }
+
+    // экспорт через сервис: JdbcTemplate отдаёт строки в обработчик так же, как курсор
+    private static String export(Tournament tournament, boolean trf, List<String> columns, List<Object[]> rows) throws Exception {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                handler.processRow(resultSet(columns, row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(Mockito.any(PreparedStatementCreator.class), Mockito.any(RowCallbackHandler.class));
+
+        TournamentExportService service = new TournamentExportService(jdbcTemplate, Mockito.mock(TournamentRepository.class),
+                Mockito.mock(PlayerRepository.class), new TransliterationService());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (trf) {
+            service.writeTrf(tournament, out);
+        } else {
+            service.writePgn(tournament, out);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // строка выборки с настоящей семантикой wasNull(): он относится к последней прочитанной колонке
+    private static ResultSet resultSet(List<String> columns, Object[] row) {
+        boolean[] lastWasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("wasNull")) {
+                        return lastWasNull[0];
+                    }
+                    int column = args[0] instanceof String label ? columns.indexOf(label) : (Integer) args[0] - 1;
+                    Object value = row[column];
+                    lastWasNull[0] = value == null;
+                    return switch (method.getName()) {
+                        case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                        case "getDouble" -> value == null ? 0.0 : ((Number) value).doubleValue();
+                        case "getString" -> value == null ? null : value.toString();
+                        case "getObject" -> value;
+                        default -> throw new UnsupportedOperationException(method.getName() + Arrays.toString(args));
+                    };
+                });
+    }
+}
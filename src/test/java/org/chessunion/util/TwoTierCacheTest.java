@@ -0,0 +1,81 @@
+package org.chessunion.util;
+
+import org.chessunion.util.cache.CacheInvalidationBus;
+import org.chessunion.util.cache.TwoTierCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TwoTierCacheTest {
+    private ConcurrentMapCache near;
+    private ConcurrentMapCache remote;
+    private List<String> published;
+    private CacheInvalidationBus bus;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        near = new ConcurrentMapCache("tournaments");
+        remote = new ConcurrentMapCache("tournaments");
+        published = new ArrayList<>();
+        bus = new CacheInvalidationBus(new StringRedisTemplate() {
+            @Override
+            public Long convertAndSend(String channel, Object message) {
+                published.add((String) message);
+                return 1L;
+            }
+        });
+        cache = new TwoTierCache(near, remote, bus);
+        bus.subscribe((cacheName, key) -> cache.evictNear(key));
+    }
+
+    @Test
+    public void remoteHitFillsNearTierTest() {
+        remote.put(5, "tournament 5");
+
+        Assertions.assertEquals("tournament 5", cache.get(5, String.class));
+        Assertions.assertEquals("tournament 5", near.get("5", String.class));
+        Assertions.assertEquals("tournament 5", cache.get(5, String.class));
+        Assertions.assertEquals(2, cache.hitCount());
+        Assertions.assertEquals(1, cache.nearHitCount());
+    }
+
+    @Test
+    public void evictClearsBothTiersAndBroadcastsTest() {
+        cache.put(5, "tournament 5");
+
+        cache.evict(5);
+
+        Assertions.assertNull(near.get("5"));
+        Assertions.assertNull(remote.get(5));
+        Assertions.assertEquals(1, published.size());
+        Assertions.assertTrue(published.getFirst().endsWith("\ntournaments\n5"));
+    }
+
+    @Test
+    public void foreignInvalidationEvictsOnlyNearTierTest() {
+        cache.put(5, "tournament 5");
+
+        bus.onMessage(new DefaultMessage(new byte[0], "other-node\ntournaments\n5".getBytes(StandardCharsets.UTF_8)), null);
+
+        Assertions.assertNull(near.get("5"));
+        Assertions.assertEquals("tournament 5", remote.get(5, String.class));
+    }
+
+    @Test
+    public void ownInvalidationIsIgnoredTest() {
+        cache.evict(7);
+
+        near.put("7", "stale");
+        bus.onMessage(new DefaultMessage(new byte[0], published.getFirst().getBytes(StandardCharsets.UTF_8)), null);
+
+        Assertions.assertEquals("stale", near.get("7", String.class));
+    }
+}